@@ -0,0 +1,104 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.config.Config;
+import com.open.schedule.io.PacketCompressor;
+import com.open.schedule.io.PacketDecoder;
+import com.open.schedule.io.PacketEncoder;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.client.CreateTaskPacket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+// Одна операция - пачка из BURST_TASKS заданий, как при первой синхронизации большого расписания
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BurstBenchmark {
+	@Param({"short", "4k"})
+	public String description;
+
+	@Param({"legacy", "current"})
+	public String mode;
+
+	private CreateTaskPacket[] tasks;
+	private ByteBuf burst;
+	private EmbeddedChannel encoder;
+	private EmbeddedChannel decoder;
+
+	@Setup
+	public void setup() {
+		String description = Payloads.description(this.description);
+		int features = Payloads.features(this.mode);
+
+		this.tasks = new CreateTaskPacket[Payloads.BURST_TASKS];
+
+		for (int id = 0; id < this.tasks.length; ++id) {
+			this.tasks[id] = Payloads.task(id, description);
+		}
+
+		this.burst = Payloads.taskBurst(features, description);
+
+		// Сжатие стоит в конвейере только после его согласования, как в Client
+		if (Feature.COMPRESSION.in(features))
+			this.encoder = new EmbeddedChannel(new PacketCompressor(Config.COMPRESSION_THRESHOLD), new PacketEncoder());
+		else
+			this.encoder = new EmbeddedChannel(new PacketEncoder());
+
+		this.decoder = new EmbeddedChannel(new PacketDecoder());
+
+		this.encoder.attr(Feature.ATTRIBUTE).set(features);
+		this.decoder.attr(Feature.ATTRIBUTE).set(features);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.encoder.finish();
+		this.decoder.finish();
+	}
+
+	@Benchmark
+	public long encodeBurst() {
+		for (CreateTaskPacket task : this.tasks) {
+			this.encoder.write(task);
+		}
+
+		this.encoder.flush();
+
+		long bytes = 0;
+		ByteBuf frame;
+
+		while ((frame = (ByteBuf) this.encoder.readOutbound()) != null) {
+			bytes += frame.readableBytes();
+			frame.release();
+		}
+
+		return bytes;
+	}
+
+	@Benchmark
+	public int decodeBurst() {
+		this.decoder.writeInbound(this.burst.duplicate().retain());
+
+		return ((List<?>) this.decoder.readInbound()).size();
+	}
+}
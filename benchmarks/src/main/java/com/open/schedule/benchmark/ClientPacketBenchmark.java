@@ -0,0 +1,75 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.io.PacketEncoder;
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientPacketBenchmark {
+	@Param({"REGISTER", "LOGIN", "RESUME", "SYNC", "PING", "CREATE_TABLE", "TABLE_CHANGE", "CREATE_TASK", "TASK_CHANGE",
+			"CREATE_TABLE_GROUP", "CREATE_TASK_GROUP"})
+	public String type;
+
+	@Param({"short", "4k"})
+	public String description;
+
+	@Param({"legacy", "current"})
+	public String mode;
+
+	private ClientPacket packet;
+	private int features;
+	private EmbeddedChannel channel;
+
+	@Setup
+	public void setup() {
+		this.features = Payloads.features(this.mode);
+		this.packet = Payloads.client(ClientPacket.Type.valueOf(this.type), this.features, Payloads.description(this.description));
+
+		this.channel = new EmbeddedChannel(new PacketEncoder());
+		this.channel.attr(Feature.ATTRIBUTE).set(this.features);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.channel.finish();
+	}
+
+	@Benchmark
+	public int encode() {
+		this.channel.writeOutbound(this.packet);
+
+		ByteBuf frame = (ByteBuf) this.channel.readOutbound();
+		int length = frame.readableBytes();
+
+		frame.release();
+		return length;
+	}
+
+	@Benchmark
+	public int size() {
+		return this.packet.getSize(this.features);
+	}
+}
@@ -0,0 +1,81 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.config.Config;
+import com.open.schedule.io.PacketCompressor;
+import com.open.schedule.io.PacketDecoder;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.ServerPacket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+	@Param({"TASK", "TABLE_GROUP", "TASK_GROUP"})
+	public String type;
+
+	@Param({"short", "4k"})
+	public String description;
+
+	private ByteBuf frame;
+	private ByteBuf compressed;
+	private EmbeddedChannel compressor;
+	private EmbeddedChannel decoder;
+
+	@Setup
+	public void setup() {
+		int features = Payloads.features("current");
+
+		this.frame = Payloads.serverFrame(ServerPacket.Type.valueOf(this.type), features, Payloads.description(this.description));
+		this.compressed = Payloads.compress(this.frame);
+
+		this.compressor = new EmbeddedChannel(new PacketCompressor(Config.COMPRESSION_THRESHOLD));
+		this.decoder = new EmbeddedChannel(new PacketDecoder());
+		this.decoder.attr(Feature.ATTRIBUTE).set(features);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.compressor.finish();
+		this.decoder.finish();
+	}
+
+	@Benchmark
+	public int compress() {
+		this.compressor.writeOutbound(this.frame.duplicate().retain());
+
+		ByteBuf out = (ByteBuf) this.compressor.readOutbound();
+		int length = out.readableBytes();
+
+		out.release();
+		return length;
+	}
+
+	@Benchmark
+	public Object decompressAndDecode() {
+		this.decoder.writeInbound(this.compressed.duplicate().retain());
+
+		return ((List<?>) this.decoder.readInbound()).get(0);
+	}
+}
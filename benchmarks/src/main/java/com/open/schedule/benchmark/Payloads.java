@@ -0,0 +1,289 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.account.tables.TimeFormat;
+import com.open.schedule.config.Config;
+import com.open.schedule.io.PacketCompressor;
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Packet;
+import com.open.schedule.io.packet.ServerPacket;
+import com.open.schedule.io.packet.Writer;
+import com.open.schedule.io.packet.client.CreateTableGroupPacket;
+import com.open.schedule.io.packet.client.CreateTablePacket;
+import com.open.schedule.io.packet.client.CreateTaskGroupPacket;
+import com.open.schedule.io.packet.client.CreateTaskPacket;
+import com.open.schedule.io.packet.client.LoginPacket;
+import com.open.schedule.io.packet.client.PingPacket;
+import com.open.schedule.io.packet.client.RegisterPacket;
+import com.open.schedule.io.packet.client.ResumePacket;
+import com.open.schedule.io.packet.client.SyncPacket;
+import com.open.schedule.io.packet.client.TableChangePacket;
+import com.open.schedule.io.packet.client.TaskChangePacket;
+import com.open.schedule.io.packet.server.LoggedPacket;
+import com.open.schedule.io.packet.server.RegisteredPacket;
+import com.open.schedule.utility.Utility;
+
+import java.util.Date;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+// Синтетические данные: короткие названия, описания по 4 КБ и пачки по 10 тысяч заданий
+final class Payloads {
+	static final int BURST_TASKS = 10000;
+
+	static final long TIME = 1414000000L;
+	static final String NAME = "Матанализ";
+	static final String SHORT_DESCRIPTION = "Аудитория 1-204";
+	static final String LONG_DESCRIPTION = longDescription(4096);
+
+	private static final Date START_DATE = Utility.fromEpochDay(16366);
+	private static final Date END_DATE = Utility.fromEpochDay(16731);
+	private static final Date START_TIME = Utility.fromMinuteOfDay((short) 615);
+	private static final Date END_TIME = Utility.fromMinuteOfDay((short) 710);
+	private static final short PERIOD = 7;
+
+	private Payloads() {
+	}
+
+	static int features(String mode) {
+		switch (mode) {
+			case "legacy":
+				return 0;
+			case "current":
+				return Config.PROTOCOL_FEATURES;
+		}
+
+		throw new IllegalArgumentException("Unknown mode " + mode);
+	}
+
+	static String description(String size) {
+		switch (size) {
+			case "short":
+				return SHORT_DESCRIPTION;
+			case "4k":
+				return LONG_DESCRIPTION;
+		}
+
+		throw new IllegalArgumentException("Unknown description size " + size);
+	}
+
+	static CreateTaskPacket task(int id, String description) {
+		return new CreateTaskPacket(id, 1, TIME + id, NAME, description, START_DATE, END_DATE, START_TIME, END_TIME, PERIOD);
+	}
+
+	static ClientPacket client(ClientPacket.Type type, int features, String description) {
+		switch (type) {
+			case REGISTER:
+				return new RegisterPacket(1, "student", "password");
+			case LOGIN:
+				return new LoginPacket(1, "student", "password", TIME, Config.PROTOCOL_FEATURES);
+			case RESUME:
+				return new ResumePacket(1, "0123456789abcdef0123456789abcdef", TIME, Config.PROTOCOL_FEATURES);
+			case SYNC:
+				return new SyncPacket(SyncPacket.ALL_TABLES, TIME);
+			case PING:
+				return new PingPacket(123456789L);
+			case CREATE_TABLE:
+				return new CreateTablePacket(1, TIME, NAME, description);
+			case TABLE_CHANGE:
+				return new TableChangePacket(1, TIME, null, description);
+			case CREATE_TASK:
+				return task(1, description);
+			case TASK_CHANGE:
+				return new TaskChangePacket(1, 1, TIME, NAME, description, START_DATE, END_DATE, START_TIME, END_TIME, PERIOD);
+			case CREATE_TABLE_GROUP: {
+				CreateTableGroupPacket group = new CreateTableGroupPacket(features);
+
+				for (int id = 0; group.add(new CreateTablePacket(id, TIME + id, NAME, description)); ++id) {
+				}
+
+				return group;
+			}
+			case CREATE_TASK_GROUP: {
+				CreateTaskGroupPacket group = new CreateTaskGroupPacket(features);
+
+				for (int id = 0; group.add(task(id, description)); ++id) {
+				}
+
+				return group;
+			}
+		}
+
+		throw new IllegalArgumentException("Unsupported client packet " + type);
+	}
+
+	static ByteBuf serverBody(ServerPacket.Type type, int features, String description) {
+		ByteBuf body = Unpooled.buffer();
+		Writer writer = new Writer(body).setFeatures(features);
+
+		switch (type) {
+			case REGISTERED:
+				writer.write(1);
+				writer.write((byte) RegisteredPacket.Status.SUCCESS.ordinal());
+				break;
+			case LOGGED:
+				writer.write(1);
+				writer.write((byte) LoggedPacket.Status.SUCCESS.ordinal());
+				writer.write(42);
+				writer.write((byte) features);
+
+				if (Feature.SESSION_RESUME.in(features))
+					writer.write("0123456789abcdef0123456789abcdef");
+				break;
+			case GLOBAL_TABLE_ID:
+				writer.write(1);
+				writer.write(100001);
+				break;
+			case GLOBAL_TASK_ID:
+				writer.write(1);
+				writer.write(1);
+				writer.write(100001);
+				break;
+			case TABLE:
+			case TASK:
+				writeServerRecord(writer, type, 1, description);
+				break;
+			case TABLE_GROUP:
+				writeServerGroup(writer, ServerPacket.Type.TABLE, features, description);
+				break;
+			case TASK_GROUP:
+				writeServerGroup(writer, ServerPacket.Type.TASK, features, description);
+				break;
+			case TABLE_CHANGED:
+				writer.write(1);
+				writer.writeTime(TIME);
+				writer.write(42);
+				writer.write((byte) CreateTablePacket.Fields.DESCRIPTION.ordinal(), description);
+				break;
+			case TASK_CHANGED:
+				writer.write(1);
+				writer.write(1);
+				writer.writeTime(TIME);
+				writer.write(42);
+				writer.write((byte) CreateTaskPacket.Fields.DESCRIPTION.ordinal(), description);
+				writer.write((byte) CreateTaskPacket.Fields.PERIOD.ordinal(), PERIOD);
+				break;
+			case PONG:
+				writer.write(123456789L);
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported server packet " + type);
+		}
+
+		return body;
+	}
+
+	static ByteBuf serverFrame(ServerPacket.Type type, int features, String description) {
+		ByteBuf body = serverBody(type, features, description);
+		ByteBuf frame = Unpooled.buffer(Packet.PACKET_TYPE_LENGTH + Packet.PACKET_SIZE_LENGTH + body.readableBytes());
+
+		frame.writeByte(type.ordinal());
+		frame.writeShort(body.readableBytes());
+		frame.writeBytes(body);
+
+		return frame;
+	}
+
+	static ByteBuf compress(ByteBuf frame) {
+		EmbeddedChannel channel = new EmbeddedChannel(new PacketCompressor(Config.COMPRESSION_THRESHOLD));
+
+		channel.writeOutbound(frame.duplicate().retain());
+		ByteBuf compressed = (ByteBuf) channel.readOutbound();
+
+		try {
+			return Unpooled.copiedBuffer(compressed);
+		} finally {
+			compressed.release();
+			channel.finish();
+		}
+	}
+
+	static ByteBuf taskBurst(int features, String description) {
+		ByteBuf burst = Unpooled.buffer();
+
+		for (int id = 0; id < BURST_TASKS; ++id) {
+			ByteBuf body = Unpooled.buffer();
+			writeServerRecord(new Writer(body).setFeatures(features), ServerPacket.Type.TASK, id, description);
+
+			burst.writeByte(ServerPacket.Type.TASK.ordinal());
+			burst.writeShort(body.readableBytes());
+			burst.writeBytes(body);
+		}
+
+		return burst;
+	}
+
+	private static void writeServerGroup(Writer writer, ServerPacket.Type type, int features, String description) {
+		Writer.SizeCounter counter = new Writer.SizeCounter();
+		counter.setFeatures(features);
+
+		// Группа заполняется до предела размера пакета, как при первой синхронизации
+		int count = 0;
+
+		while (true) {
+			writeServerRecord(counter, type, count, description);
+
+			if (Integer.SIZE / 8 + counter.getSize() > ClientPacket.MAX_PACKET_SIZE)
+				break;
+
+			count++;
+		}
+
+		writer.write(count);
+
+		for (int id = 0; id < count; ++id) {
+			writeServerRecord(writer, type, id, description);
+		}
+	}
+
+	private static void writeServerRecord(Writer writer, ServerPacket.Type type, int id, String description) {
+		writer.write(id);
+
+		if (type == ServerPacket.Type.TASK)
+			writer.write(id);
+
+		writer.writeTime(TIME + id);
+		writer.write(42);
+		writer.write(NAME);
+		writer.write(description);
+
+		if (type != ServerPacket.Type.TASK)
+			return;
+
+		if (writer.has(Feature.BINARY_TIME)) {
+			writer.write(Utility.toEpochDay(START_DATE));
+			writer.write(Utility.toEpochDay(END_DATE));
+			writer.write(Utility.toMinuteOfDay(START_TIME));
+			writer.write(Utility.toMinuteOfDay(END_TIME));
+		} else {
+			writer.write(Utility.parseToString(START_DATE, TimeFormat.DATE_FORMATTER));
+			writer.write(Utility.parseToString(END_DATE, TimeFormat.DATE_FORMATTER));
+			writer.write(Utility.parseToString(START_TIME, TimeFormat.TIME_FORMATTER));
+			writer.write(Utility.parseToString(END_TIME, TimeFormat.TIME_FORMATTER));
+		}
+
+		writer.write(PERIOD);
+	}
+
+	private static String longDescription(int bytes) {
+		String sentence = "Лекция по теме недели, затем семинар: разбор домашних задач и контрольная работа. ";
+		StringBuilder builder = new StringBuilder();
+		int size = 0;
+
+		// Длина считается в байтах UTF-8, как на проводе
+		for (int i = 0; ; i = (i + 1) % sentence.length()) {
+			char symbol = sentence.charAt(i);
+			int symbolSize = (symbol < 0x80 ? 1 : 2);
+
+			if (size + symbolSize > bytes)
+				break;
+
+			builder.append(symbol);
+			size += symbolSize;
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,78 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.io.PacketDecoder;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.ServerPacket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerPacketBenchmark {
+	@Param({"REGISTERED", "LOGGED", "GLOBAL_TABLE_ID", "GLOBAL_TASK_ID", "TABLE", "TASK", "TABLE_GROUP", "TASK_GROUP",
+			"TABLE_CHANGED", "TASK_CHANGED", "PONG"})
+	public String type;
+
+	@Param({"short", "4k"})
+	public String description;
+
+	@Param({"legacy", "current"})
+	public String mode;
+
+	private ServerPacket.Type packetType;
+	private int features;
+	private ByteBuf body;
+	private ByteBuf frame;
+	private EmbeddedChannel channel;
+
+	@Setup
+	public void setup() {
+		String description = Payloads.description(this.description);
+
+		this.packetType = ServerPacket.Type.valueOf(this.type);
+		this.features = Payloads.features(this.mode);
+		this.body = Payloads.serverBody(this.packetType, this.features, description);
+		this.frame = Payloads.serverFrame(this.packetType, this.features, description);
+
+		this.channel = new EmbeddedChannel(new PacketDecoder());
+		this.channel.attr(Feature.ATTRIBUTE).set(this.features);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.channel.finish();
+	}
+
+	@Benchmark
+	public ServerPacket get() {
+		return ServerPacket.get(this.packetType, this.body.duplicate(), this.features);
+	}
+
+	@Benchmark
+	public Object decode() {
+		this.channel.writeInbound(this.frame.duplicate().retain());
+
+		return ((List<?>) this.channel.readInbound()).get(0);
+	}
+}
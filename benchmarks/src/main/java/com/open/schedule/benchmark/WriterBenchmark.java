@@ -0,0 +1,115 @@
+package com.open.schedule.benchmark;
+
+import com.open.schedule.io.packet.Writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+	private static final int VALUES = 256;
+
+	@Param({"legacy", "current"})
+	public String mode;
+
+	private final ByteBuf buffer = Unpooled.buffer(64 * 1024);
+	private final Writer writer = new Writer(this.buffer);
+	private final Writer.SizeCounter counter = new Writer.SizeCounter();
+
+	private final int[] ints = new int[VALUES];
+	private final long[] longs = new long[VALUES];
+	private final long[] times = new long[VALUES];
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+
+		// Вперемешку маленькие идентификаторы и большие значения, как в реальных пакетах
+		for (int i = 0; i < VALUES; ++i) {
+			this.ints[i] = (i % 4 == 0 ? random.nextInt() : random.nextInt(1000));
+			this.longs[i] = (i % 4 == 0 ? random.nextLong() : random.nextInt(100000));
+			this.times[i] = Payloads.TIME + random.nextInt(30 * 24 * 60 * 60);
+		}
+
+		int features = Payloads.features(this.mode);
+
+		this.writer.setFeatures(features);
+		this.counter.setFeatures(features);
+	}
+
+	@Benchmark
+	public int writeInts() {
+		this.writer.wrap(this.buffer.clear());
+
+		for (int value : this.ints) {
+			this.writer.write(value);
+		}
+
+		return this.buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int writeLongs() {
+		this.writer.wrap(this.buffer.clear());
+
+		for (long value : this.longs) {
+			this.writer.write(value);
+		}
+
+		return this.buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int writeTimes() {
+		this.writer.wrap(this.buffer.clear());
+
+		for (long time : this.times) {
+			this.writer.writeTime(time);
+		}
+
+		return this.buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int writeShortString() {
+		this.writer.wrap(this.buffer.clear());
+		this.writer.write(Payloads.NAME);
+
+		return this.buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int writeLongString() {
+		this.writer.wrap(this.buffer.clear());
+		this.writer.write(Payloads.LONG_DESCRIPTION);
+
+		return this.buffer.writerIndex();
+	}
+
+	@Benchmark
+	public int countLongString() {
+		this.counter.reset().write(Payloads.LONG_DESCRIPTION);
+
+		return this.counter.getSize();
+	}
+}
@@ -1,41 +1,123 @@
 package com.open.schedule.account;
 
+import android.content.SharedPreferences;
+
+import com.open.schedule.account.tables.PlanRange;
 import com.open.schedule.account.tables.Plans;
 import com.open.schedule.account.tables.Table;
 import com.open.schedule.account.tables.Task;
 import com.open.schedule.io.Client;
+import com.open.schedule.utility.IntObjectMap;
+import com.open.schedule.utility.Utility;
 
 import java.util.Date;
-import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Account {
+	public interface Listener {
+		void tableChanged(Table table);
+
+		void taskChanged(Task task);
+	}
+
+	private static final String PREFERENCE_LAST_SYNC_TIME = "last_sync_time";
+	private static final String PREFERENCE_LAST_SYNC_ACCOUNT = "last_sync_account";
+
 	private int id = 0;
 	private long lastSyncTime = 0;
+	private int syncAccountId = 0;
+	private boolean syncTimeChanged = false;
 
-	private final Tables tables = new Tables();
+	private final Tables tables;
+	private final SharedPreferences preferences;
 
 	private Client client = null;
 
-	public Account() {}
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+	private Plans plans = null;
+
+	public Account(SharedPreferences preferences) {
+		this.preferences = preferences;
+		this.tables = new Tables(new LocalIds(preferences));
+		this.lastSyncTime = preferences.getLong(PREFERENCE_LAST_SYNC_TIME, 0);
+		this.syncAccountId = preferences.getInt(PREFERENCE_LAST_SYNC_ACCOUNT, 0);
+	}
 
 	public void setClient(final Client client) {
 		this.client = client;
 	}
 
+	public void addListener(Listener listener) {
+		this.listeners.addIfAbsent(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		this.listeners.remove(listener);
+	}
+
 	public int getId() {
 		return this.id;
 	}
 
-	public void setId(int id) {
+	// Возвращает true, если отметка синхронизации, отправленная при входе, принадлежала другому аккаунту
+	public synchronized boolean setId(int id) {
+		boolean synced = (this.getLastSyncTime() != 0);
+
 		this.id = id;
+
+		if (id == this.syncAccountId)
+			return false;
+
+		this.syncAccountId = id;
+		this.lastSyncTime = 0;
+		this.syncTimeChanged = true;
+
+		return synced;
 	}
 
-	public long getLastSyncTime() {
+	public synchronized long getLastSyncTime() {
+		// Таблицы хранятся только в памяти: после перезапуска или смены аккаунта нужна полная синхронизация
+		if (this.tables.getTables().isEmpty() || this.id == 0 || this.id != this.syncAccountId)
+			return 0;
+
 		return this.lastSyncTime;
 	}
 
+	public synchronized void advanceSyncTime(long time) {
+		if (time <= this.lastSyncTime)
+			return;
+
+		this.lastSyncTime = time;
+		this.syncTimeChanged = true;
+	}
+
+	public synchronized void advanceSyncTime(int tableId, long time) {
+		Table table = this.tables.get(tableId);
+
+		if (table != null)
+			table.advanceSyncTime(time);
+
+		this.advanceSyncTime(time);
+	}
+
+	public synchronized void saveSyncTime() {
+		if (!this.syncTimeChanged)
+			return;
+
+		this.preferences.edit()
+				.putLong(PREFERENCE_LAST_SYNC_TIME, this.lastSyncTime)
+				.putInt(PREFERENCE_LAST_SYNC_ACCOUNT, this.syncAccountId)
+				.apply();
+		this.syncTimeChanged = false;
+	}
+
 	public int createTable(String name, String description, int creatorId, boolean local) {
-		Table table = this.tables.create(name, description, creatorId);
+		return this.createTable(name, description, creatorId, Utility.getUnixTime(), local);
+	}
+
+	public int createTable(String name, String description, int creatorId, long time, boolean local) {
+		Table table = this.tables.create(name, description, creatorId, time);
+		this.fireTableChanged(table);
 
 		if (local)
 			this.client.sync(table);
@@ -43,18 +125,130 @@ public class Account {
 		return table.getId();
 	}
 
-	public void createTask(int tableId, String name, String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period, boolean local) {
-		Task task = this.tables.createTask(tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period);
+	public int createTask(int tableId, String name, String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period, boolean local) {
+		return this.createTask(tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period, Utility.getUnixTime(), local);
+	}
+
+	public int createTask(int tableId, String name, String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period, long time, boolean local) {
+		Task task = this.tables.createTask(tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period, time);
+		this.fireTaskChanged(task);
 
 		if (local)
 			this.client.sync(task);
+
+		return task.getId();
+	}
+
+	public void changeTable(int tableId, int creatorId, long time, String name, String description, boolean local) {
+		Table table = this.tables.get(tableId);
+
+		if (table == null)
+			return;
+
+		if (local) {
+			Table.TableChange current = (Table.TableChange) table.getData();
+
+			name = changed(current.name, name);
+			description = changed(current.description, description);
+
+			if (name == null && description == null)
+				return;
+		}
+
+		Table.TableChange change = table.new TableChange(creatorId, time, name, description);
+		table.change(time, change);
+		this.fireTableChanged(table);
+
+		if (local)
+			this.client.syncChange(table, change);
+	}
+
+	public void changeTask(int tableId, int taskId, int creatorId, long time, String name, String description,
+						   Date startDate, Date endDate, Date startTime, Date endTime, Short period, boolean local) {
+		Table table = this.tables.get(tableId);
+		Task task = (table == null ? null : table.getTask(taskId));
+
+		if (task == null)
+			return;
+
+		if (local) {
+			Task.TaskChange current = (Task.TaskChange) task.getData();
+
+			name = changed(current.name, name);
+			description = changed(current.description, description);
+			startDate = changed(current.startDate, startDate);
+			endDate = changed(current.endDate, endDate);
+			startTime = changed(current.startTime, startTime);
+			endTime = changed(current.endTime, endTime);
+			period = changed(current.period, period);
+
+			if (name == null && description == null && startDate == null && endDate == null
+					&& startTime == null && endTime == null && period == null)
+				return;
+		}
+
+		Task.TaskChange change = task.new TaskChange(creatorId, time, name, description, startDate, endDate, startTime, endTime, period);
+		task.change(time, change);
+		this.fireTaskChanged(task);
+
+		if (local)
+			this.client.syncChange(task, change);
+	}
+
+	public Table getTable(int tableId) {
+		return this.tables.get(tableId);
 	}
 
-	public SortedMap<Integer, Table> getTables() {
+	public Table getTableByGlobalId(int globalId) {
+		return this.tables.getByGlobalId(globalId);
+	}
+
+	public void setTableGlobalId(int tableId, int globalId) {
+		Table table = this.tables.get(tableId);
+
+		if (table != null)
+			this.tables.setGlobalId(table, globalId);
+	}
+
+	public void setTaskGlobalId(int tableId, int taskId, int globalId) {
+		Table table = this.tables.get(tableId);
+		Task task = (table == null ? null : table.getTask(taskId));
+
+		if (task != null)
+			table.setTaskGlobalId(task, globalId);
+	}
+
+	public IntObjectMap<Table> getTables() {
 		return this.tables.getTables();
 	}
 
-	public Plans getTablePlans() {
-		return new Plans(this.tables);
+	public synchronized Plans getTablePlans() {
+		// Один экземпляр на аккаунт: он подписан на изменения и обновляется инкрементально
+		if (this.plans == null) {
+			this.plans = new Plans(this.tables);
+			this.addListener(this.plans);
+		}
+
+		return this.plans;
+	}
+
+	public PlanRange getPlanRange(int fromDay, int toDay) {
+		return new PlanRange(this.tables.getColumns(), fromDay, toDay);
+	}
+
+	private void fireTableChanged(Table table) {
+		for (Listener listener : this.listeners) {
+			listener.tableChanged(table);
+		}
+	}
+
+	private void fireTaskChanged(Task task) {
+		for (Listener listener : this.listeners) {
+			listener.taskChanged(task);
+		}
+	}
+
+	private static <T> T changed(T current, T value) {
+		return (value == null || value.equals(current) ? null : value);
 	}
 }
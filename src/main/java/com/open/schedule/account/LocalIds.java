@@ -0,0 +1,30 @@
+package com.open.schedule.account;
+
+import android.content.SharedPreferences;
+
+// Локальные идентификаторы таблиц и заданий не повторяются между запусками:
+// по ним сервер подтверждает создание, а очередь неотправленных изменений находит записи
+class LocalIds {
+	private static final String PREFERENCE_RESERVED = "local_ids_reserved";
+	private static final int BLOCK_SIZE = 64;
+
+	private final SharedPreferences preferences;
+	private int next;
+	private int reserved;
+
+	LocalIds(SharedPreferences preferences) {
+		this.preferences = preferences;
+		this.next = this.reserved = preferences.getInt(PREFERENCE_RESERVED, 0);
+	}
+
+	synchronized int next() {
+		// Идентификаторы резервируются блоками, чтобы не писать настройки на каждое создание.
+		// Запись синхронная: если процесс умрёт до неё, после перезапуска выданные номера повторятся
+		if (this.next == this.reserved) {
+			this.reserved += BLOCK_SIZE;
+			this.preferences.edit().putInt(PREFERENCE_RESERVED, this.reserved).commit();
+		}
+
+		return this.next++;
+	}
+}
@@ -2,36 +2,63 @@ package com.open.schedule.account;
 
 import com.open.schedule.account.tables.Table;
 import com.open.schedule.account.tables.Task;
+import com.open.schedule.account.tables.TaskColumns;
+import com.open.schedule.utility.IntIntMap;
+import com.open.schedule.utility.IntObjectMap;
 
 import java.util.Date;
-import java.util.NavigableMap;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 public class Tables {
-	private NavigableMap<Integer, Table> tables = new TreeMap<Integer, Table>();
+	private final IntObjectMap<Table> tables = new IntObjectMap<>();
+	private final IntIntMap globalIds = new IntIntMap();
+	private final TaskColumns columns = new TaskColumns();
+	// Идентификаторы не переиспользуются даже после удаления таблицы или перезапуска
+	private final LocalIds ids;
 
-	public Table create(final String name, final String description, final int creatorId) {
-		int tableId = this.tables.size();
-		Table table = new Table(tableId, name, description, creatorId);
+	Tables(LocalIds ids) {
+		this.ids = ids;
+	}
+
+	public Table create(final String name, final String description, final int creatorId, long time) {
+		int tableId = this.ids.next();
+		Table table = new Table(tableId, name, description, creatorId, time);
 
 		this.tables.put(tableId, table);
 
 		return table;
 	}
 
-	public Task createTask(Integer tableId, final String name, final String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
+	public Task createTask(int tableId, final String name, final String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period, long time) {
 		Table table = this.tables.get(tableId);
-		int taskId = table.getTasks().size();
+		int taskId = this.ids.next();
 
-		Task task = new Task(taskId, tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period);
+		Task task = new Task(taskId, tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period, time);
 
-		tables.get(tableId).addTask(taskId, task);
+		table.addTask(taskId, task);
+		this.columns.add(task);
 
 		return task;
 	}
 
-	public final SortedMap<Integer, Table> getTables() {
+	public Table get(int tableId) {
+		return this.tables.get(tableId);
+	}
+
+	public Table getByGlobalId(int globalId) {
+		int tableId = this.globalIds.get(globalId, Table.NO_ID);
+		return (tableId == Table.NO_ID ? null : this.tables.get(tableId));
+	}
+
+	public void setGlobalId(Table table, int globalId) {
+		table.setGlobalId(globalId);
+		this.globalIds.put(globalId, table.getId());
+	}
+
+	public final TaskColumns getColumns() {
+		return this.columns;
+	}
+
+	public final IntObjectMap<Table> getTables() {
 		return tables;
 	}
 }
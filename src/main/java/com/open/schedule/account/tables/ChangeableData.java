@@ -1,16 +1,18 @@
 package com.open.schedule.account.tables;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
 import java.util.TreeMap;
 
 public class ChangeableData {
+	public static final int NO_ID = -1;
+
 	public TreeMap<Long, Change> changes = new TreeMap<>();
 
 	private Integer id;
+	private int globalId = NO_ID;
+
+	// Состояние после применения всех изменений; сами изменения в истории не модифицируются
+	private Change current = null;
+	private long currentTime = 0;
 
 	public ChangeableData(Integer id) {
 		this.id = id;
@@ -24,22 +26,42 @@ public class ChangeableData {
 		return this.id;
 	}
 
+	public final int getGlobalId() {
+		return this.globalId;
+	}
+
+	public final void setGlobalId(int globalId) {
+		this.globalId = globalId;
+	}
+
 	public void change(Long time, Change change) {
-		changes.put(time, change);
+		this.changes.put(time, change);
+
+		// Новое изменение накладывается на текущее состояние, старое пересчитывается только при изменении «из прошлого»
+		if (this.current != null && time > this.currentTime)
+			this.current = change.mergedWith(this.current);
+		else
+			this.rebuild();
+
+		this.currentTime = this.changes.lastKey();
+		this.changed();
+	}
+
+	protected void changed() {
 	}
 
 	public Change getData() {
-		if (changes.size() == 0)
-			return null;
+		return this.current;
+	}
 
-		Change info = changes.lastEntry().getValue();
+	private void rebuild() {
+		Change state = null;
 
-		NavigableMap<Long, Change> reverseChanges = changes.descendingMap();
-		Collection<Entry<Long, Change>> set = reverseChanges.entrySet();
-		for (Iterator<Entry<Long, Change>> iter = set.iterator(); iter.hasNext() && info.hasNulls(); )
-			info.merge(iter.next().getValue());
+		for (Change change : this.changes.values()) {
+			state = (state == null ? change : change.mergedWith(state));
+		}
 
-		return info;
+		this.current = state;
 	}
 
 	public abstract class Change {
@@ -54,6 +76,7 @@ public class ChangeableData {
 
 		public abstract Boolean hasNulls();
 
-		public abstract void merge(Change prev);
+		// Возвращает новый объект: поля этого изменения поверх состояния prev
+		public abstract Change mergedWith(Change prev);
 	}
 }
@@ -0,0 +1,202 @@
+package com.open.schedule.account.tables;
+
+import com.open.schedule.config.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+public class PlanRange {
+	// Меньше этого числа заданий распараллеливать невыгодно
+	private static final int PARALLEL_THRESHOLD = 2048;
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool(Config.RANGE_THREADS, new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "plan-range");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1);
+			return thread;
+		}
+	});
+
+	private final TaskColumns columns;
+	private final int toDay;
+
+	// Результаты вычисляются окнами по RANGE_WINDOW_DAYS дней, чтобы год не занимал память целиком.
+	// Начало следующего окна хранится в long: после окна, кончающегося на Integer.MAX_VALUE, оно не переполняется
+	private long windowFrom;
+	private Chunk[] chunks = new Chunk[0];
+	private int[] positions = new int[0];
+	private Task[] tasks = null;
+
+	private int day = TaskColumns.NO_DAY;
+	private int[] rows = new int[16];
+	private int count = 0;
+
+	public PlanRange(TaskColumns columns, int fromDay, int toDay) {
+		this.columns = columns;
+		this.windowFrom = fromDay;
+		this.toDay = toDay;
+	}
+
+	public boolean nextDay() {
+		while (true) {
+			boolean found = false;
+			int next = Integer.MAX_VALUE;
+
+			for (int i = 0; i < this.chunks.length; ++i) {
+				if (this.positions[i] < this.chunks[i].size) {
+					next = Math.min(next, dayOf(this.chunks[i].data[this.positions[i]]));
+					found = true;
+				}
+			}
+
+			if (found) {
+				this.collect(next);
+				return true;
+			}
+
+			if (this.windowFrom > this.toDay)
+				return false;
+
+			this.evaluateWindow();
+		}
+	}
+
+	public int getDay() {
+		return this.day;
+	}
+
+	public int getCount() {
+		return this.count;
+	}
+
+	public Task getTask(int index) {
+		return this.tasks[this.rows[index]];
+	}
+
+	private void collect(int day) {
+		this.day = day;
+		this.count = 0;
+
+		for (int i = 0; i < this.chunks.length; ++i) {
+			Chunk chunk = this.chunks[i];
+
+			while (this.positions[i] < chunk.size && dayOf(chunk.data[this.positions[i]]) == day) {
+				if (this.count == this.rows.length)
+					this.rows = Arrays.copyOf(this.rows, this.count * 2);
+
+				this.rows[this.count++] = (int) chunk.data[this.positions[i]++];
+			}
+		}
+	}
+
+	private void evaluateWindow() {
+		final int from = (int) this.windowFrom;
+		final int to = (int) Math.min(this.toDay, this.windowFrom + Config.RANGE_WINDOW_DAYS - 1);
+
+		this.windowFrom = (long) to + 1;
+
+		synchronized (this.columns) {
+			int size = this.columns.size();
+			int parts = (size < PARALLEL_THRESHOLD ? 1 : Config.RANGE_THREADS);
+
+			this.tasks = this.columns.snapshotTasks();
+			this.chunks = new Chunk[parts];
+			this.positions = new int[parts];
+
+			if (parts == 1) {
+				this.chunks[0] = this.evaluate(0, size, from, to);
+				return;
+			}
+
+			ArrayList<Callable<Chunk>> jobs = new ArrayList<>(parts);
+
+			for (int part = 0; part < parts; ++part) {
+				final int begin = (int) ((long) size * part / parts);
+				final int end = (int) ((long) size * (part + 1) / parts);
+
+				jobs.add(new Callable<Chunk>() {
+					@Override
+					public Chunk call() throws Exception {
+						return PlanRange.this.evaluate(begin, end, from, to);
+					}
+				});
+			}
+
+			try {
+				List<Future<Chunk>> results = executor.invokeAll(jobs);
+
+				for (int part = 0; part < parts; ++part) {
+					this.chunks[part] = results.get(part).get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while evaluating plan range", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Exception on evaluating plan range", e.getCause());
+			}
+		}
+	}
+
+	private Chunk evaluate(int begin, int end, int from, int to) {
+		Chunk chunk = new Chunk();
+
+		for (int row = begin; row < end; ++row) {
+			int startDay = this.columns.getStartDay(row);
+			int endDay = this.columns.getEndDay(row);
+			int period = this.columns.getPeriod(row);
+
+			if (startDay == TaskColumns.NO_DAY || startDay > to)
+				continue;
+
+			int last = (endDay == TaskColumns.NO_DAY ? to : Math.min(endDay, to));
+
+			// Первое вхождение в окне вычисляется арифметически, без перебора дней; в long, чтобы у границ int не было переполнения
+			long first;
+			if (startDay >= from) {
+				first = startDay;
+			} else if (period > 0) {
+				first = startDay + (((long) from - startDay + period - 1) / period) * period;
+			} else {
+				continue;
+			}
+
+			if (period <= 0) {
+				if (first <= last)
+					chunk.add((first << 32) | row);
+				continue;
+			}
+
+			for (long day = first; day <= last; day += period) {
+				chunk.add((day << 32) | row);
+			}
+		}
+
+		Arrays.sort(chunk.data, 0, chunk.size);
+		return chunk;
+	}
+
+	private static int dayOf(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	private static class Chunk {
+		long[] data = new long[64];
+		int size = 0;
+
+		void add(long value) {
+			if (this.size == this.data.length)
+				this.data = Arrays.copyOf(this.data, this.size * 2);
+
+			this.data[this.size++] = value;
+		}
+	}
+}
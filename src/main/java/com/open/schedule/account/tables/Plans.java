@@ -1,15 +1,31 @@
 package com.open.schedule.account.tables;
 
+import com.open.schedule.account.Account;
 import com.open.schedule.account.Tables;
+import com.open.schedule.utility.IntObjectMap;
 import com.open.schedule.utility.Utility;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 
-public class Plans {
+public class Plans implements Account.Listener {
 	private final Tables tables;
 	private final ArrayList<TablePlan> todayPlans = new ArrayList<TablePlan>();
+	private int today = TaskColumns.NO_DAY;
+
+	// События приходят из сетевого потока, а применяются в update() из потока интерфейса
+	private final ArrayList<Table> pendingTables = new ArrayList<>();
+	private final ArrayList<Task> pendingTasks = new ArrayList<>();
+	private volatile Runnable pendingListener = null;
+
+	private static final Comparator<Task> TASK_ORDER = new Comparator<Task>() {
+		@Override
+		public int compare(Task first, Task second) {
+			return first.getId().compareTo(second.getId());
+		}
+	};
 
 	public Plans(Tables tables) {
 		this.tables = tables;
@@ -17,46 +33,183 @@ public class Plans {
 		update();
 	}
 
-	static private ArrayList<Task> getTodayTasks(Table table) {
-		ArrayList<Task> tasks = new ArrayList<Task>();
-		Iterator<Entry<Integer, Task>> iterator = table.getTasks().entrySet().iterator();
-		while (iterator.hasNext()) {
-			Entry<Integer, Task> entry = iterator.next();
-			Long currentTime = Utility.getUnixTime();
-			Task task = entry.getValue();
-			Task.TaskChange data = (Task.TaskChange) task.getData();
+	public void setPendingListener(Runnable listener) {
+		this.pendingListener = listener;
+	}
+
+	@Override
+	public void tableChanged(Table table) {
+		boolean first;
+
+		synchronized (this.pendingTables) {
+			first = this.pendingTables.isEmpty() && this.pendingTasks.isEmpty();
+			this.pendingTables.add(table);
+		}
+
+		this.notifyPending(first);
+	}
 
-			if (data.endDate.getTime() < currentTime * 1000 || data.startDate.getTime() > currentTime * 1000)
-				continue;
+	@Override
+	public void taskChanged(Task task) {
+		boolean first;
 
-			if ((currentTime - data.startDate.getTime()) % data.period == 0)
-				tasks.add(task);
+		synchronized (this.pendingTables) {
+			first = this.pendingTables.isEmpty() && this.pendingTasks.isEmpty();
+			this.pendingTasks.add(task);
 		}
-		return tasks;
+
+		this.notifyPending(first);
 	}
 
 	public TablePlan getTodayPlan(int id) {
 		return this.todayPlans.get(id);
 	}
 
-	public void update() {
-		Iterator<Entry<Integer, Table>> tableIter = tables.getTables().entrySet().iterator();
-		while (tableIter.hasNext()) {
-			Entry<Integer, Table> entry = tableIter.next();
+	public Diff update() {
+		ArrayList<Table> tables;
+		ArrayList<Task> tasks;
 
-			Table table = entry.getValue();
+		synchronized (this.pendingTables) {
+			tables = new ArrayList<>(this.pendingTables);
+			tasks = new ArrayList<>(this.pendingTasks);
 
-			ArrayList<Task> tasks = getTodayTasks(table);
-			if (!tasks.isEmpty()) {
-				this.todayPlans.add(new TablePlan(table, tasks));
-			}
+			this.pendingTables.clear();
+			this.pendingTasks.clear();
+		}
+
+		Diff diff = new Diff();
+		int day = Utility.toEpochDay(new Date());
+
+		// После полуночи план строится заново, иначе применяются только изменившиеся задания
+		if (day != this.today) {
+			this.today = day;
+			this.rebuild();
+
+			diff.full = true;
+			return diff;
+		}
+
+		for (Task task : tasks) {
+			this.apply(task, diff);
+		}
+
+		for (Table table : tables) {
+			if (this.find(table.getId()) >= 0)
+				diff.changed(table.getId());
 		}
+
+		return diff;
 	}
 
 	public int count() {
 		return todayPlans.size();
 	}
 
+	private void rebuild() {
+		final TaskColumns columns = this.tables.getColumns();
+		final IntObjectMap<ArrayList<Task>> tasksByTable = new IntObjectMap<>();
+
+		this.todayPlans.clear();
+
+		// Сканируются только примитивные колонки; объекты создаются лишь для найденных заданий
+		columns.forEachOn(this.today, new TaskColumns.Visitor() {
+			@Override
+			public void visit(int row) {
+				int tableId = columns.getTableId(row);
+				ArrayList<Task> tasks = tasksByTable.get(tableId);
+
+				if (tasks == null) {
+					tasks = new ArrayList<>();
+					tasksByTable.put(tableId, tasks);
+				}
+
+				tasks.add(columns.getTask(row));
+			}
+		});
+
+		for (int tableId : tasksByTable.sortedKeys()) {
+			ArrayList<Task> tasks = tasksByTable.get(tableId);
+			Collections.sort(tasks, TASK_ORDER);
+
+			this.todayPlans.add(new TablePlan(this.tables.get(tableId), tasks));
+		}
+	}
+
+	private void apply(Task task, Diff diff) {
+		int tableId = task.getTableId();
+		int position = this.find(tableId);
+		boolean occurs = this.occursToday(task);
+
+		if (position < 0) {
+			if (!occurs)
+				return;
+
+			ArrayList<Task> tasks = new ArrayList<>();
+			tasks.add(task);
+
+			this.todayPlans.add(-position - 1, new TablePlan(this.tables.get(tableId), tasks));
+			diff.inserted(tableId);
+			return;
+		}
+
+		ArrayList<Task> tasks = this.todayPlans.get(position).tasks;
+		int index = Collections.binarySearch(tasks, task, TASK_ORDER);
+
+		if (occurs) {
+			if (index < 0) {
+				tasks.add(-index - 1, task);
+				diff.resized(tableId);
+			} else {
+				diff.changed(tableId);
+			}
+		} else if (index >= 0) {
+			tasks.remove(index);
+
+			if (tasks.isEmpty()) {
+				this.todayPlans.remove(position);
+				diff.removed(tableId);
+			} else {
+				diff.resized(tableId);
+			}
+		}
+	}
+
+	private boolean occursToday(Task task) {
+		TaskColumns columns = this.tables.getColumns();
+		int row = task.getRow();
+
+		if (row < 0)
+			return false;
+
+		return TaskColumns.occursOn(columns.getStartDay(row), columns.getEndDay(row), columns.getPeriod(row), this.today);
+	}
+
+	private int find(int tableId) {
+		int low = 0;
+		int high = this.todayPlans.size() - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = this.todayPlans.get(middle).table.getId();
+
+			if (id < tableId)
+				low = middle + 1;
+			else if (id > tableId)
+				high = middle - 1;
+			else
+				return middle;
+		}
+
+		return -(low + 1);
+	}
+
+	private void notifyPending(boolean first) {
+		Runnable listener = this.pendingListener;
+
+		if (first && listener != null)
+			listener.run();
+	}
+
 	public class TablePlan {
 		public Table table;
 		public ArrayList<Task> tasks;
@@ -66,4 +219,52 @@ public class Plans {
 			this.tasks = tasks;
 		}
 	}
+
+	public static class Diff {
+		public boolean full = false;
+		public final ArrayList<Integer> insertedTables = new ArrayList<>();
+		public final ArrayList<Integer> removedTables = new ArrayList<>();
+		// Группы, в которых появились или пропали задания
+		public final ArrayList<Integer> resizedTables = new ArrayList<>();
+		// Группы с тем же составом заданий, у которых изменились только данные
+		public final ArrayList<Integer> changedTables = new ArrayList<>();
+
+		public boolean isEmpty() {
+			return !this.isStructural() && this.changedTables.isEmpty();
+		}
+
+		// Изменились позиции групп или заданий, видимые строки нельзя просто перепривязать
+		public boolean isStructural() {
+			return this.full || !this.insertedTables.isEmpty() || !this.removedTables.isEmpty() || !this.resizedTables.isEmpty();
+		}
+
+		private void inserted(int tableId) {
+			if (this.removedTables.remove((Integer) tableId))
+				this.resizedTables.add(tableId);
+			else
+				this.insertedTables.add(tableId);
+		}
+
+		private void removed(int tableId) {
+			this.changedTables.remove((Integer) tableId);
+			this.resizedTables.remove((Integer) tableId);
+
+			// Группа, вставленная и удалённая в одном обновлении, не видна адаптеру
+			if (!this.insertedTables.remove((Integer) tableId))
+				this.removedTables.add(tableId);
+		}
+
+		private void resized(int tableId) {
+			if (this.insertedTables.contains(tableId) || this.resizedTables.contains(tableId))
+				return;
+
+			this.changedTables.remove((Integer) tableId);
+			this.resizedTables.add(tableId);
+		}
+
+		private void changed(int tableId) {
+			if (!this.insertedTables.contains(tableId) && !this.resizedTables.contains(tableId) && !this.changedTables.contains(tableId))
+				this.changedTables.add(tableId);
+		}
+	}
 }
@@ -0,0 +1,170 @@
+package com.open.schedule.account.tables;
+
+import com.open.schedule.utility.IntObjectMap;
+
+import java.util.Arrays;
+
+class RecurrenceIndex {
+	// Для каждого периода: фаза (день начала по модулю периода) -> строки, упорядоченные по дню окончания.
+	// Однократные задания хранятся под периодом 0 с фазой, равной дню начала
+	private final IntObjectMap<IntObjectMap<Bucket>> periods = new IntObjectMap<>();
+	private int[] periodKeys = new int[0];
+
+	// Копия ключей каждой строки: по ним строка находится в корзине, когда колонки уже перезаписаны
+	private boolean[] present = new boolean[0];
+	private int[] startDays = new int[0];
+	private int[] endDays = new int[0];
+	private int[] rowPeriods = new int[0];
+
+	void set(int row, int startDay, int endDay, int period) {
+		this.remove(row);
+
+		if (startDay == TaskColumns.NO_DAY)
+			return;
+
+		this.ensureCapacity(row + 1);
+
+		this.present[row] = true;
+		this.startDays[row] = startDay;
+		this.endDays[row] = (endDay == TaskColumns.NO_DAY ? Integer.MAX_VALUE : endDay);
+		this.rowPeriods[row] = Math.max(period, 0);
+
+		this.bucket(row, true).insert(key(this.endDays[row], row));
+	}
+
+	void remove(int row) {
+		if (row >= this.present.length || !this.present[row])
+			return;
+
+		this.bucket(row, false).delete(key(this.endDays[row], row));
+		this.present[row] = false;
+	}
+
+	// Строка from переехала на место to, которое уже освобождено
+	void move(int from, int to) {
+		if (from >= this.present.length || !this.present[from])
+			return;
+
+		int startDay = this.startDays[from];
+		int endDay = this.endDays[from];
+		int period = this.rowPeriods[from];
+
+		this.remove(from);
+
+		this.ensureCapacity(to + 1);
+
+		this.present[to] = true;
+		this.startDays[to] = startDay;
+		this.endDays[to] = endDay;
+		this.rowPeriods[to] = period;
+
+		this.bucket(to, true).insert(key(endDay, to));
+	}
+
+	void forEachOn(int day, TaskColumns.Visitor visitor) {
+		for (int period : this.periodKeys) {
+			Bucket bucket = this.periods.get(period).get(phase(day, period));
+
+			if (bucket == null)
+				continue;
+
+			// Задания, закончившиеся до day, образуют префикс корзины и не просматриваются
+			for (int i = bucket.lowerBound(key(day, 0)); i < bucket.size; ++i) {
+				int row = (int) bucket.keys[i];
+
+				if (this.startDays[row] <= day)
+					visitor.visit(row);
+			}
+		}
+	}
+
+	private Bucket bucket(int row, boolean create) {
+		int period = this.rowPeriods[row];
+		int phase = phase(this.startDays[row], period);
+
+		IntObjectMap<Bucket> buckets = this.periods.get(period);
+		if (buckets == null) {
+			if (!create)
+				return null;
+
+			buckets = new IntObjectMap<>();
+			this.periods.put(period, buckets);
+			this.periodKeys = this.periods.sortedKeys();
+		}
+
+		Bucket bucket = buckets.get(phase);
+		if (bucket == null && create) {
+			bucket = new Bucket();
+			buckets.put(phase, bucket);
+		}
+
+		return bucket;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= this.present.length)
+			return;
+
+		capacity = Math.max(capacity, this.present.length * 2);
+
+		this.present = Arrays.copyOf(this.present, capacity);
+		this.startDays = Arrays.copyOf(this.startDays, capacity);
+		this.endDays = Arrays.copyOf(this.endDays, capacity);
+		this.rowPeriods = Arrays.copyOf(this.rowPeriods, capacity);
+	}
+
+	// День окончания в старших битах, строка в младших: корзина хранит ключи без упаковки в объекты
+	private static long key(int endDay, int row) {
+		return ((long) endDay << 32) | (row & 0xFFFFFFFFL);
+	}
+
+	private static int phase(int day, int period) {
+		if (period == 0)
+			return day;
+
+		int phase = day % period;
+		return (phase < 0 ? phase + period : phase);
+	}
+
+	private static class Bucket {
+		long[] keys = new long[4];
+		int size = 0;
+
+		void insert(long key) {
+			int position = this.lowerBound(key);
+
+			if (this.size == this.keys.length)
+				this.keys = Arrays.copyOf(this.keys, this.size * 2);
+
+			System.arraycopy(this.keys, position, this.keys, position + 1, this.size - position);
+			this.keys[position] = key;
+			this.size++;
+		}
+
+		void delete(long key) {
+			int position = this.lowerBound(key);
+
+			if (position == this.size || this.keys[position] != key)
+				return;
+
+			System.arraycopy(this.keys, position + 1, this.keys, position, this.size - position - 1);
+			this.size--;
+		}
+
+		int lowerBound(long key) {
+			int low = 0;
+			int high = this.size;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+
+				if (this.keys[middle] < key)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+
+			return low;
+		}
+	}
+}
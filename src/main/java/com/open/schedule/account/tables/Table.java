@@ -1,36 +1,60 @@
 package com.open.schedule.account.tables;
 
+import com.open.schedule.utility.IntIntMap;
+import com.open.schedule.utility.IntObjectMap;
 import com.open.schedule.utility.Utility;
 
-import java.util.NavigableMap;
-import java.util.TreeMap;
-
 public class Table extends ChangeableData {
-	private NavigableMap<Integer, Task> tasks = new TreeMap<Integer, Task>();
+	private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+	private final IntIntMap globalTaskIds = new IntIntMap();
+	private long syncTime = 0;
 
 	public Table(int id, final String name, final String description, int creatorId) {
+		this(id, name, description, creatorId, Utility.getUnixTime());
+	}
+
+	// Таблица с сервера создаётся со временем сервера, иначе более ранние изменения с сервера окажутся «до» создания
+	public Table(int id, final String name, final String description, int creatorId, long time) {
 		super(id);
 
-		long currentTime = Utility.getUnixTime();
-		this.change(currentTime, new TableChange(creatorId, currentTime, name, description));
+		this.change(time, new TableChange(creatorId, time, name, description));
 	}
 
-	public Task addTask(Integer taskId, Task task) {
+	public Task addTask(int taskId, Task task) {
 		tasks.put(taskId, task);
-		return tasks.get(taskId);
+		return task;
 	}
 
-	public Task getTask(Integer taskId) {
+	public Task getTask(int taskId) {
 		return tasks.get(taskId);
 	}
 
-	public final NavigableMap<Integer, Task> getTasks() {
+	public Task getTaskByGlobalId(int globalId) {
+		int taskId = this.globalTaskIds.get(globalId, NO_ID);
+		return (taskId == NO_ID ? null : this.tasks.get(taskId));
+	}
+
+	public void setTaskGlobalId(Task task, int globalId) {
+		task.setGlobalId(globalId);
+		this.globalTaskIds.put(globalId, task.getId());
+	}
+
+	public long getSyncTime() {
+		return this.syncTime;
+	}
+
+	public void advanceSyncTime(long time) {
+		if (time > this.syncTime)
+			this.syncTime = time;
+	}
+
+	public final IntObjectMap<Task> getTasks() {
 		return tasks;
 	}
 
 	public class TableChange extends Change {
-		public String name;
-		public String description;
+		public final String name;
+		public final String description;
 
 		public TableChange(Integer creatorId, long time, String name, String description) {
 			super(creatorId, time);
@@ -42,11 +66,15 @@ public class Table extends ChangeableData {
 			return (name == null || description == null);
 		}
 
-		public void merge(Change prev) {
-			if (this.name == null)
-				this.name = ((TableChange) prev).name;
-			if (this.description == null)
-				this.description = ((TableChange) prev).description;
+		public Change mergedWith(Change prev) {
+			if (!this.hasNulls())
+				return this;
+
+			TableChange state = (TableChange) prev;
+
+			return new TableChange(this.creatorId, this.time,
+					(this.name != null ? this.name : state.name),
+					(this.description != null ? this.description : state.description));
 		}
 	}
 }
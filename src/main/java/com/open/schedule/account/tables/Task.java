@@ -8,27 +8,48 @@ public class Task extends ChangeableData {
 
 	private final int tableId;
 
+	private TaskColumns columns = null;
+	private int row = -1;
+
 	public Task(int id, int tableId, String name, String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
+		this(id, tableId, name, description, creatorId, startDate, endDate, startTime, endTime, period, Utility.getUnixTime());
+	}
+
+	public Task(int id, int tableId, String name, String description, int creatorId, Date startDate, Date endDate, Date startTime, Date endTime, Short period, long time) {
 		super(id);
 
 		this.tableId = tableId;
 
-		long currentTime = Utility.getUnixTime();
-		this.change(currentTime, new TaskChange(creatorId, currentTime, name, description, startDate, endDate, startTime, endTime, period));
+		this.change(time, new TaskChange(creatorId, time, name, description, startDate, endDate, startTime, endTime, period));
 	}
 
 	public int getTableId() {
 		return  this.tableId;
 	}
 
+	int getRow() {
+		return this.row;
+	}
+
+	void setColumns(TaskColumns columns, int row) {
+		this.columns = columns;
+		this.row = row;
+	}
+
+	@Override
+	protected void changed() {
+		if (this.columns != null)
+			this.columns.update(this.row, this);
+	}
+
 	public class TaskChange extends Change {
-		public String name = null;
-		public String description = null;
-		public Date startDate = null;
-		public Date endDate = null;
-		public Date startTime = null;
-		public Date endTime = null;
-		public Short period = null;
+		public final String name;
+		public final String description;
+		public final Date startDate;
+		public final Date endDate;
+		public final Date startTime;
+		public final Date endTime;
+		public final Short period;
 
 		public TaskChange(Integer creatorId, long time, String name, String description, Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
 			super(creatorId, time);
@@ -47,21 +68,20 @@ public class Task extends ChangeableData {
 		}
 
 		@Override
-		public void merge(Change prev) {
-			if (this.name == null)
-				this.name = ((TaskChange) prev).name;
-			if (this.description == null)
-				this.description = ((TaskChange) prev).description;
-			if (this.startDate == null)
-				this.startDate = ((TaskChange) prev).startDate;
-			if (this.endDate == null)
-				this.endDate = ((TaskChange) prev).endDate;
-			if (this.startTime == null)
-				this.startTime = ((TaskChange) prev).startTime;
-			if (this.endTime == null)
-				this.endTime = ((TaskChange) prev).endTime;
-			if (this.period == null)
-				this.period = ((TaskChange) prev).period;
+		public Change mergedWith(Change prev) {
+			if (!this.hasNulls())
+				return this;
+
+			TaskChange state = (TaskChange) prev;
+
+			return new TaskChange(this.creatorId, this.time,
+					(this.name != null ? this.name : state.name),
+					(this.description != null ? this.description : state.description),
+					(this.startDate != null ? this.startDate : state.startDate),
+					(this.endDate != null ? this.endDate : state.endDate),
+					(this.startTime != null ? this.startTime : state.startTime),
+					(this.endTime != null ? this.endTime : state.endTime),
+					(this.period != null ? this.period : state.period));
 		}
 	}
 }
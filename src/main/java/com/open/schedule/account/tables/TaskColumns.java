@@ -0,0 +1,166 @@
+package com.open.schedule.account.tables;
+
+import com.open.schedule.utility.Utility;
+
+import java.util.Arrays;
+
+public class TaskColumns {
+	private static final int DEFAULT_CAPACITY = 64;
+
+	public static final int NO_DAY = Integer.MIN_VALUE;
+	public static final short NO_MINUTE = -1;
+
+	public interface Visitor {
+		void visit(int row);
+	}
+
+	// Поля заданий в параллельных массивах: сканирование не трогает объекты Task и Date
+	private int[] tableIds;
+	private int[] startDays;
+	private int[] endDays;
+	private short[] startMinutes;
+	private short[] endMinutes;
+	private short[] periods;
+	private Task[] tasks;
+
+	private int size = 0;
+
+	// Индекс обновляется построчно вместе с колонками
+	private final RecurrenceIndex index = new RecurrenceIndex();
+
+	public TaskColumns() {
+		this.allocate(DEFAULT_CAPACITY);
+	}
+
+	public synchronized int size() {
+		return this.size;
+	}
+
+	public synchronized void add(Task task) {
+		if (this.size == this.tasks.length)
+			this.allocate(this.tasks.length * 2);
+
+		int row = this.size++;
+
+		this.tasks[row] = task;
+		task.setColumns(this, row);
+
+		this.set(row, task);
+	}
+
+	public synchronized void remove(Task task) {
+		int row = task.getRow();
+
+		if (row < 0 || row >= this.size || this.tasks[row] != task)
+			return;
+
+		int last = --this.size;
+
+		this.index.remove(row);
+
+		// Последняя строка переносится на место удалённой, чтобы массивы оставались плотными
+		if (row != last) {
+			this.tableIds[row] = this.tableIds[last];
+			this.startDays[row] = this.startDays[last];
+			this.endDays[row] = this.endDays[last];
+			this.startMinutes[row] = this.startMinutes[last];
+			this.endMinutes[row] = this.endMinutes[last];
+			this.periods[row] = this.periods[last];
+			this.tasks[row] = this.tasks[last];
+			this.tasks[row].setColumns(this, row);
+
+			this.index.move(last, row);
+		}
+
+		this.tasks[last] = null;
+		task.setColumns(null, -1);
+	}
+
+	synchronized void update(int row, Task task) {
+		if (row >= 0 && row < this.size && this.tasks[row] == task)
+			this.set(row, task);
+	}
+
+	public synchronized void forEachOn(int day, Visitor visitor) {
+		this.index.forEachOn(day, visitor);
+	}
+
+	public int getTableId(int row) {
+		return this.tableIds[row];
+	}
+
+	public int getStartDay(int row) {
+		return this.startDays[row];
+	}
+
+	public int getEndDay(int row) {
+		return this.endDays[row];
+	}
+
+	public short getStartMinute(int row) {
+		return this.startMinutes[row];
+	}
+
+	public short getEndMinute(int row) {
+		return this.endMinutes[row];
+	}
+
+	public short getPeriod(int row) {
+		return this.periods[row];
+	}
+
+	public Task getTask(int row) {
+		return this.tasks[row];
+	}
+
+	synchronized Task[] snapshotTasks() {
+		return Arrays.copyOf(this.tasks, this.size);
+	}
+
+	public static boolean occursOn(int startDay, int endDay, int period, int day) {
+		if (startDay == NO_DAY || day < startDay || (endDay != NO_DAY && day > endDay))
+			return false;
+
+		// Период в днях; нулевой или отрицательный период означает однократное задание
+		return (period <= 0 ? day == startDay : (day - startDay) % period == 0);
+	}
+
+	private void set(int row, Task task) {
+		Task.TaskChange data = (Task.TaskChange) task.getData();
+
+		Integer startDay = Utility.toEpochDay(data.startDate);
+		Integer endDay = Utility.toEpochDay(data.endDate);
+		Short startMinute = Utility.toMinuteOfDay(data.startTime);
+		Short endMinute = Utility.toMinuteOfDay(data.endTime);
+
+		this.tableIds[row] = task.getTableId();
+		this.startDays[row] = (startDay != null ? startDay : NO_DAY);
+		this.endDays[row] = (endDay != null ? endDay : NO_DAY);
+		this.startMinutes[row] = (startMinute != null ? startMinute : NO_MINUTE);
+		this.endMinutes[row] = (endMinute != null ? endMinute : NO_MINUTE);
+		this.periods[row] = (data.period != null ? data.period : 0);
+
+		this.index.set(row, this.startDays[row], this.endDays[row], this.periods[row]);
+	}
+
+	private void allocate(int capacity) {
+		if (this.tasks == null) {
+			this.tableIds = new int[capacity];
+			this.startDays = new int[capacity];
+			this.endDays = new int[capacity];
+			this.startMinutes = new short[capacity];
+			this.endMinutes = new short[capacity];
+			this.periods = new short[capacity];
+			this.tasks = new Task[capacity];
+			return;
+		}
+
+		this.tableIds = Arrays.copyOf(this.tableIds, capacity);
+		this.startDays = Arrays.copyOf(this.startDays, capacity);
+		this.endDays = Arrays.copyOf(this.endDays, capacity);
+		this.startMinutes = Arrays.copyOf(this.startMinutes, capacity);
+		this.endMinutes = Arrays.copyOf(this.endMinutes, capacity);
+		this.periods = Arrays.copyOf(this.periods, capacity);
+		this.tasks = Arrays.copyOf(this.tasks, capacity);
+	}
+}
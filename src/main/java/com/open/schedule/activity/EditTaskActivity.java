@@ -218,21 +218,30 @@ public class EditTaskActivity extends ScheduleActivity implements OnClickListene
 			});
 
 			Intent intent = getActivity().getIntent();
-			if (intent.getBooleanExtra(EditTaskActivity.EXTRA_NAME, false)) {
+			if (intent.getBooleanExtra(EditTaskActivity.EXTRA_CHANGE, false)) {
 				for (ValueMapper mapper : activity.valueMappers) {
 					mapper.view.setText(intent.getStringExtra(mapper.intentExtra));
 				}
 
-				Integer period = Integer.valueOf(intent.getStringExtra(EditTaskActivity.EXTRA_PERIOD));
+				String periodValue = intent.getStringExtra(EditTaskActivity.EXTRA_PERIOD);
+				Integer period = null;
+
+				try {
+					if (!TextUtils.isEmpty(periodValue))
+						period = Integer.valueOf(periodValue);
+				} catch (NumberFormatException e) {
+					// Неверное значение: период в списке не выбирается
+				}
+
 				Iterator<Entry<Periods, Integer>> iter = periodDays.entrySet().iterator();
-				while (iter.hasNext()) {
+				while (period != null && iter.hasNext()) {
 					Entry<Periods, Integer> entry = iter.next();
-					if (entry.getValue() != period)
+					if (!entry.getValue().equals(period))
 						continue;
 
 					activity.periodSpinner.setSelection(entry.getKey().ordinal());
 					activity.periodView.setVisibility(View.VISIBLE);
-					activity.periodView.setText(period);
+					activity.periodView.setText(periodValue);
 					break;
 				}
 
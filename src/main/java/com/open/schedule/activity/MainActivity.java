@@ -23,11 +23,10 @@ import android.widget.Toast;
 
 import com.open.schedule.R;
 import com.open.schedule.account.Account;
+import com.open.schedule.account.tables.Plans;
 import com.open.schedule.account.tables.Table;
 import com.open.schedule.activity.adapter.PlansAdapter;
-
-import java.util.ArrayList;
-import java.util.SortedMap;
+import com.open.schedule.utility.IntObjectMap;
 
 public class MainActivity extends ScheduleActivity {
 	public static final String TABLE_ID = "EXTRA_TABLE_ID";
@@ -58,6 +57,13 @@ public class MainActivity extends ScheduleActivity {
 		updatePlans();
 	}
 
+	@Override
+	protected void onDestroy() {
+		this.getAccount().getTablePlans().setPendingListener(null);
+
+		super.onDestroy();
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		getMenuInflater().inflate(R.menu.main, menu);
@@ -134,12 +140,25 @@ public class MainActivity extends ScheduleActivity {
 	}
 
 	private void initPlans() {
-		listTablePlans.setAdapter(new PlansAdapter(this, this.getAccount().getTablePlans()));
+		Plans plans = this.getAccount().getTablePlans();
+
+		listTablePlans.setAdapter(new PlansAdapter(this, plans));
+
+		plans.setPendingListener(new Runnable() {
+			@Override
+			public void run() {
+				MainActivity.this.runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						MainActivity.this.updatePlans();
+					}
+				});
+			}
+		});
 	}
 
 	private void updatePlans() {
-		((PlansAdapter) listTablePlans.getExpandableListAdapter()).update();
-		((PlansAdapter) listTablePlans.getExpandableListAdapter()).notifyDataSetChanged();
+		((PlansAdapter) listTablePlans.getExpandableListAdapter()).update(listTablePlans);
 	}
 
 	private void createNewTable(Intent data) {
@@ -201,10 +220,11 @@ public class MainActivity extends ScheduleActivity {
 	}
 
 	public class TablesAdapter extends BaseAdapter {
-		SortedMap<Integer, Table> tables;
-		ArrayList<Integer> idsByPos = new ArrayList<Integer>();
+		IntObjectMap<Table> tables;
+		int[] idsByPos;
+		int idsModCount;
 
-		public TablesAdapter(SortedMap<Integer, Table> tables) {
+		public TablesAdapter(IntObjectMap<Table> tables) {
 			this.tables = tables;
 			updateTablesIds();
 		}
@@ -221,12 +241,14 @@ public class MainActivity extends ScheduleActivity {
 
 		@Override
 		public Table getItem(int position) {
-			return tables.get(idsByPos.get(position));
+			updateTablesIds();
+			return tables.get(idsByPos[position]);
 		}
 
 		@Override
 		public long getItemId(int position) {
-			return idsByPos.get(position);
+			updateTablesIds();
+			return idsByPos[position];
 		}
 
 		@Override
@@ -238,7 +260,7 @@ public class MainActivity extends ScheduleActivity {
 				rowView = inflater.inflate(R.layout.item_table, arg2, false);
 			}
 
-			Table table = tables.get(idsByPos.get(position));
+			Table table = tables.get(idsByPos[position]);
 			TextView tableName = (TextView) rowView.findViewById(R.id.item_table_name);
 			TextView tableDescription = (TextView) rowView.findViewById(R.id.item_table_description);
 			tableName.setText(((Table.TableChange) table.getData()).name);
@@ -247,9 +269,12 @@ public class MainActivity extends ScheduleActivity {
 		}
 
 		private void updateTablesIds() {
-			idsByPos.clear();
-			for (Integer tableId : tables.keySet())
-				idsByPos.add(tableId);
+			// Порядок пересчитывается только после добавления или удаления таблиц
+			if (idsByPos != null && idsModCount == tables.getModCount())
+				return;
+
+			idsByPos = tables.sortedKeys();
+			idsModCount = tables.getModCount();
 		}
 	}
 }
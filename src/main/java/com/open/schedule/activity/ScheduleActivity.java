@@ -8,6 +8,13 @@ import com.open.schedule.io.Client;
 import com.open.schedule.io.ServerConnection;
 
 public class ScheduleActivity extends Activity {
+	@Override
+	protected void onResume() {
+		super.onResume();
+
+		this.getConnector().reconnect();
+	}
+
 	public Account getAccount() {
 		return ((ScheduleApplication) this.getApplication()).account;
 	}
@@ -20,11 +20,10 @@ import com.open.schedule.account.tables.Table;
 import com.open.schedule.account.tables.Task;
 import com.open.schedule.account.tables.Task.TaskChange;
 import com.open.schedule.account.tables.TimeFormat;
+import com.open.schedule.utility.IntObjectMap;
 import com.open.schedule.utility.Utility;
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.SortedMap;
 
 public class ViewTableActivity extends ScheduleActivity {
 	private static final String LOG_TAG = ViewTableActivity.class.getName();
@@ -53,7 +52,7 @@ public class ViewTableActivity extends ScheduleActivity {
 		setContentView(R.layout.activity_view_table);
 
 		this.tableId = getIntent().getExtras().getInt(MainActivity.TABLE_ID);
-		this.table = this.getAccount().getTables().get(tableId);
+		this.table = this.getAccount().getTable(tableId);
 
 		this.tableName = (TextView) findViewById(R.id.text_table_name);
 		this.tableDesc = (TextView) findViewById(R.id.text_table_description);
@@ -91,6 +90,9 @@ public class ViewTableActivity extends ScheduleActivity {
 			case REQUEST_CREATE_TASK:
 				newTask(data);
 				return;
+			case REQUEST_CHANGE:
+				changeTable(data);
+				return;
 			default:
 				return;
 		}
@@ -116,6 +118,17 @@ public class ViewTableActivity extends ScheduleActivity {
 		((BaseAdapter) tasksList.getAdapter()).notifyDataSetChanged();
 	}
 
+	private void changeTable(Intent data) {
+		String name = data.getExtras().getString(EditTableActivity.EXTRA_NAME);
+		String description = data.getExtras().getString(EditTableActivity.EXTRA_DESCRIPTION);
+
+		final Account account = this.getAccount();
+		account.changeTable(this.tableId, account.getId(), Utility.getUnixTime(), name, description, true);
+
+		this.tableName.setText(((Table.TableChange) table.getData()).name);
+		this.tableDesc.setText(((Table.TableChange) table.getData()).description);
+	}
+
 	private void showTable() {
 		String name = ((Table.TableChange) table.getData()).name;
 		String description = ((Table.TableChange) table.getData()).description;
@@ -154,10 +167,11 @@ public class ViewTableActivity extends ScheduleActivity {
 	}
 
 	public class TasksAdapter extends BaseAdapter {
-		private SortedMap<Integer, Task> tasks;
-		private ArrayList<Integer> idsByPos = new ArrayList<Integer>();
+		private IntObjectMap<Task> tasks;
+		private int[] idsByPos;
+		private int idsModCount;
 
-		public TasksAdapter(SortedMap<Integer, Task> tasks) {
+		public TasksAdapter(IntObjectMap<Task> tasks) {
 			this.tasks = tasks;
 		}
 
@@ -173,27 +187,26 @@ public class ViewTableActivity extends ScheduleActivity {
 
 		@Override
 		public Task getItem(int position) {
-			return tasks.get(idsByPos.get(position));
+			updateTasksIds();
+			return tasks.get(idsByPos[position]);
 		}
 
 		@Override
 		public long getItemId(int position) {
-			return idsByPos.get(position);
+			updateTasksIds();
+			return idsByPos[position];
 		}
 
 		@Override
 		public View getView(int position, View rowView, ViewGroup arg2) {
-			idsByPos.clear();
-			for (Integer taskId : tasks.keySet()) {
-				idsByPos.add(taskId);
-			}
+			updateTasksIds();
 
 			if (rowView == null) {
 				LayoutInflater inflater = (LayoutInflater) ViewTableActivity.this.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 				rowView = inflater.inflate(R.layout.item_task, arg2, false);
 			}
 
-			Task task = tasks.get(idsByPos.get(position));
+			Task task = tasks.get(idsByPos[position]);
 			TaskChange data = (TaskChange) task.getData();
 
 			TextView taskName = (TextView) rowView.findViewById(R.id.item_task_name);
@@ -214,5 +227,13 @@ public class ViewTableActivity extends ScheduleActivity {
 
 			return rowView;
 		}
+
+		private void updateTasksIds() {
+			if (idsByPos != null && idsModCount == tasks.getModCount())
+				return;
+
+			idsByPos = tasks.sortedKeys();
+			idsModCount = tasks.getModCount();
+		}
 	}
 }
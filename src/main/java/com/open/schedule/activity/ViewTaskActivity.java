@@ -3,6 +3,7 @@ package com.open.schedule.activity;
 import android.app.Fragment;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -11,10 +12,13 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.open.schedule.R;
+import com.open.schedule.account.Account;
 import com.open.schedule.account.tables.Task;
 import com.open.schedule.account.tables.TimeFormat;
 import com.open.schedule.utility.Utility;
 
+import java.util.Date;
+
 public class ViewTaskActivity extends ScheduleActivity {
 	public static final int REQUEST_CHANGE = 1;
 
@@ -38,7 +42,7 @@ public class ViewTaskActivity extends ScheduleActivity {
 
 		this.tableId = getIntent().getExtras().getInt(ViewTableActivity.EXTRA_TABLE_ID);
 		this.taskId = getIntent().getExtras().getInt(ViewTableActivity.EXTRA_TASK_ID);
-		this.task = this.getAccount().getTables().get(tableId).getTask(taskId);
+		this.task = this.getAccount().getTable(tableId).getTask(taskId);
 
 		if (savedInstanceState == null) {
 			getFragmentManager().beginTransaction().add(R.id.container, new PlaceholderFragment()).commit();
@@ -70,12 +74,63 @@ public class ViewTaskActivity extends ScheduleActivity {
 
 		switch (requestCode) {
 			case REQUEST_CHANGE:
+				changeTask(data);
 				return;
 			default:
 				return;
 		}
 	}
 
+	private void changeTask(Intent data) {
+		String name = data.getExtras().getString(EditTaskActivity.EXTRA_NAME);
+		String description = data.getExtras().getString(EditTaskActivity.EXTRA_DESCRIPTION);
+		String startDate = data.getExtras().getString(EditTaskActivity.EXTRA_START_DATE);
+		String endDate = data.getExtras().getString(EditTaskActivity.EXTRA_END_DATE);
+		String startTime = data.getExtras().getString(EditTaskActivity.EXTRA_START_TIME);
+		String endTime = data.getExtras().getString(EditTaskActivity.EXTRA_END_TIME);
+		Short period = parsePeriod(data.getExtras().getString(EditTaskActivity.EXTRA_PERIOD));
+
+		Date startDateVal = Utility.parseToDate(startDate, TimeFormat.DATE_FORMATTER);
+		Date endDateVal = Utility.parseToDate(endDate, TimeFormat.DATE_FORMATTER);
+		Date startTimeVal = Utility.parseToDate(startTime, TimeFormat.TIME_FORMATTER);
+		Date endTimeVal = Utility.parseToDate(endTime, TimeFormat.TIME_FORMATTER);
+
+		final Account account = this.getAccount();
+		account.changeTask(this.tableId, this.taskId, account.getId(), Utility.getUnixTime(), name, description,
+				startDateVal, endDateVal, startTimeVal, endTimeVal, period, true);
+
+		this.showTask();
+	}
+
+	// Период приходит строкой из поля ввода: пустое или неверное значение считается неизменённым
+	private static Short parsePeriod(String value) {
+		if (TextUtils.isEmpty(value))
+			return null;
+
+		try {
+			Integer period = Integer.valueOf(value);
+
+			if (period < 0 || period > Short.MAX_VALUE)
+				return null;
+
+			return period.shortValue();
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private void showTask() {
+		Task.TaskChange data = (Task.TaskChange) this.task.getData();
+
+		this.taskName.setText(data.name);
+		this.taskDesc.setText(data.description);
+		this.taskStartDate.setText(Utility.parseToString(data.startDate, TimeFormat.DATE_FORMATTER));
+		this.taskEndDate.setText(Utility.parseToString(data.endDate, TimeFormat.DATE_FORMATTER));
+		this.taskStartTime.setText(Utility.parseToString(data.startTime, TimeFormat.TIME_FORMATTER));
+		this.taskEndTime.setText(Utility.parseToString(data.endTime, TimeFormat.TIME_FORMATTER));
+		this.taskPeriod.setText(data.period != null ? data.period.toString() : null);
+	}
+
 	private void openChangeTaskActivity() {
 		Task.TaskChange data = (Task.TaskChange) task.getData();
 
@@ -87,7 +142,7 @@ public class ViewTaskActivity extends ScheduleActivity {
 		intent.putExtra(EditTaskActivity.EXTRA_END_DATE, Utility.parseToString(data.endDate, TimeFormat.DATE_FORMATTER));
 		intent.putExtra(EditTaskActivity.EXTRA_START_TIME, Utility.parseToString(data.startTime, TimeFormat.TIME_FORMATTER));
 		intent.putExtra(EditTaskActivity.EXTRA_END_TIME, Utility.parseToString(data.endTime, TimeFormat.TIME_FORMATTER));
-		intent.putExtra(EditTaskActivity.EXTRA_PERIOD, data.period);
+		intent.putExtra(EditTaskActivity.EXTRA_PERIOD, (data.period != null ? data.period.toString() : null));
 
 		startActivityForResult(intent, REQUEST_CHANGE);
 	}
@@ -98,7 +153,6 @@ public class ViewTaskActivity extends ScheduleActivity {
 			View rootView = inflater.inflate(R.layout.fragment_view_task, container, false);
 
 			ViewTaskActivity activity = (ViewTaskActivity) getActivity();
-			Task.TaskChange data = (Task.TaskChange) activity.task.getData();
 
 			activity.taskName = (TextView) rootView.findViewById(R.id.view_task_name);
 			activity.taskDesc = (TextView) rootView.findViewById(R.id.view_task_desc);
@@ -108,13 +162,7 @@ public class ViewTaskActivity extends ScheduleActivity {
 			activity.taskEndTime = (TextView) rootView.findViewById(R.id.view_task_end_time);
 			activity.taskPeriod = (TextView) rootView.findViewById(R.id.view_task_period);
 
-			activity.taskName.setText(data.name);
-			activity.taskDesc.setText(data.description);
-			activity.taskStartDate.setText(Utility.parseToString(data.startDate, TimeFormat.DATE_FORMATTER));
-			activity.taskEndDate.setText(Utility.parseToString(data.endDate, TimeFormat.DATE_FORMATTER));
-			activity.taskStartTime.setText(Utility.parseToString(data.startTime, TimeFormat.DATE_FORMATTER));
-			activity.taskEndTime.setText(Utility.parseToString(data.endTime, TimeFormat.DATE_FORMATTER));
-			activity.taskPeriod.setText(data.period.toString());
+			activity.showTask();
 
 			return rootView;
 		}
@@ -4,6 +4,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseExpandableListAdapter;
+import android.widget.ExpandableListView;
 import android.widget.TextView;
 
 import com.open.schedule.R;
@@ -26,8 +27,41 @@ public class PlansAdapter extends BaseExpandableListAdapter {
 		this.inflater = LayoutInflater.from(this.owner.getApplicationContext());
 	}
 
-	public void update() {
-		this.plans.update();
+	public void update(ExpandableListView list) {
+		Plans.Diff diff = this.plans.update();
+
+		if (diff.isEmpty())
+			return;
+
+		if (diff.isStructural()) {
+			this.notifyDataSetChanged();
+			return;
+		}
+
+		// Состав групп не изменился: заново заполняются только видимые строки изменившихся групп
+		int first = list.getFirstVisiblePosition();
+
+		for (int i = 0; i < list.getChildCount(); ++i) {
+			long position = list.getExpandableListPosition(first + i);
+			int type = ExpandableListView.getPackedPositionType(position);
+
+			if (type == ExpandableListView.PACKED_POSITION_TYPE_NULL)
+				continue;
+
+			int group = ExpandableListView.getPackedPositionGroup(position);
+
+			if (!diff.changedTables.contains(this.getTableId(group)))
+				continue;
+
+			View view = list.getChildAt(i);
+
+			if (type == ExpandableListView.PACKED_POSITION_TYPE_GROUP) {
+				this.getGroupView(group, list.isGroupExpanded(group), view, list);
+			} else {
+				int child = ExpandableListView.getPackedPositionChild(position);
+				this.getChildView(group, child, child == this.getChildrenCount(group) - 1, view, list);
+			}
+		}
 	}
 
 	public Integer getTaskId(int groupPosition, int childPosition) {
@@ -47,7 +81,7 @@ public class PlansAdapter extends BaseExpandableListAdapter {
 
 	@Override
 	public long getChildId(int groupPosition, int childPosition) {
-		return childPosition;
+		return this.getTaskId(groupPosition, childPosition);
 	}
 
 	@Override
@@ -95,7 +129,7 @@ public class PlansAdapter extends BaseExpandableListAdapter {
 
 	@Override
 	public long getGroupId(int groupPosition) {
-		return groupPosition;
+		return this.getTableId(groupPosition);
 	}
 
 	@Override
@@ -1,7 +1,8 @@
 package com.open.schedule.app;
 
 import android.app.Application;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -9,33 +10,30 @@ import com.open.schedule.R;
 import com.open.schedule.account.Account;
 import com.open.schedule.config.Config;
 import com.open.schedule.io.Client;
+import com.open.schedule.io.Outbox;
 import com.open.schedule.io.PacketDecoder;
 import com.open.schedule.io.ServerConnection;
 
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-
-import static java.util.concurrent.TimeUnit.SECONDS;
+import java.io.File;
 
 public class ScheduleApplication extends Application {
 	public Account account;
 	public Client client;
 	public ServerConnection connector;
 
-	private final static ConnectionRetryExecutor scheduler;
+	private final static String PREFERENCES_ACCOUNT = "account";
+	private final static String OUTBOX_FILE = "outbox";
 
-	static {
-		scheduler = new ConnectionRetryExecutor();
-	}
+	private final Handler handler = new Handler(Looper.getMainLooper());
 
 	@Override
 	public void onCreate() {
-		this.account = new Account();
-		this.client = new Client(this.account);
+		this.account = new Account(this.getSharedPreferences(PREFERENCES_ACCOUNT, MODE_PRIVATE));
+		this.client = new Client(this.account, new Outbox(new File(this.getFilesDir(), OUTBOX_FILE)));
 		this.account.setClient(this.client);
 
-		this.connector = new ServerConnection(this, this.client, Config.HOST, Config.PORT);
-
-		new ConnectionAsyncTask().execute();
+		this.connector = new ServerConnection(this.client, Config.HOST, Config.PORT, new ConnectionListener());
+		this.connector.start();
 
 		Log.d("ScheduleApplication", "Started");
 	}
@@ -44,36 +42,24 @@ public class ScheduleApplication extends Application {
 		return this.connector.isConnected();
 	}
 
-	public class ConnectionAsyncTask extends AsyncTask<Void, Void, Void> {
-		@Override
-		protected Void doInBackground(Void... params) {
-			ScheduleApplication.this.connector.tryConnect();
-			return null;
-		}
-
-		@Override
-		protected void onPostExecute(Void result) {
-			if (ScheduleApplication.this.isConnected()) {
-				Toast.makeText(ScheduleApplication.this.getBaseContext(), R.string.toast_connection_up, Toast.LENGTH_SHORT).show();
-			} else {
-				Toast.makeText(ScheduleApplication.this.getBaseContext(), "Не смог", Toast.LENGTH_SHORT).show();
-
-				new ConnectionAsyncTask().executeOnExecutor(ScheduleApplication.scheduler);
+	private void toast(final CharSequence text) {
+		this.handler.post(new Runnable() {
+			@Override
+			public void run() {
+				Toast.makeText(ScheduleApplication.this.getBaseContext(), text, Toast.LENGTH_SHORT).show();
 			}
-		}
+		});
 	}
 
-	private static class ConnectionRetryExecutor extends ScheduledThreadPoolExecutor {
-		private final static int CORE_POOL_SIZE = 1;
-		private final static int RETRY_TIMEOUT = 30;
-
-		public ConnectionRetryExecutor() {
-			super(CORE_POOL_SIZE);
+	private class ConnectionListener implements ServerConnection.Listener {
+		@Override
+		public void connected() {
+			ScheduleApplication.this.toast(ScheduleApplication.this.getText(R.string.toast_connection_up));
 		}
 
 		@Override
-		public void execute (Runnable command) {
-			schedule(command, RETRY_TIMEOUT, SECONDS);
+		public void disconnected() {
+			Log.d("ScheduleApplication", "Disconnected");
 		}
 	}
 }
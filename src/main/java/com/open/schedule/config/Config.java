@@ -1,6 +1,32 @@
 package com.open.schedule.config;
 
+import com.open.schedule.io.packet.Feature;
+
 public final class Config {
 	public static String HOST = "lizzy.jtalk.me";
 	public static int PORT = 4567;
+
+	public static int PROTOCOL_FEATURES = Feature.BINARY_TIME.mask | Feature.COMPRESSION.mask | Feature.COMPACT_NUMBERS.mask | Feature.SESSION_RESUME.mask;
+	public static int COMPRESSION_THRESHOLD = 256;
+
+	public static int CONNECT_TIMEOUT = 10 * 1000;
+	public static long RECONNECT_MIN_DELAY = 500;
+	public static long RECONNECT_MAX_DELAY = 60 * 1000;
+	public static long RECONNECT_STABLE_TIME = 10 * 1000;
+
+	public static long HEARTBEAT_INTERVAL = 5 * 1000;
+	public static long HEARTBEAT_TIMEOUT = 15 * 1000;
+
+	public static long REQUEST_TIMEOUT = 15 * 1000;
+
+	public static int FLUSH_MAX_PACKETS = 64;
+	public static int FLUSH_MAX_BYTES = 16 * 1024;
+
+	public static int WRITE_BUFFER_LOW_WATER_MARK = 8 * 1024;
+	public static int WRITE_BUFFER_HIGH_WATER_MARK = 32 * 1024;
+	public static int SEND_QUEUE_MAX_BYTES = 64 * 1024;
+	public static int SYNC_CHUNK_RECORDS = 256;
+
+	public static int RANGE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+	public static int RANGE_WINDOW_DAYS = 31;
 }
\ No newline at end of file
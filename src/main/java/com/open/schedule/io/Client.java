@@ -9,31 +9,48 @@ import com.open.schedule.account.Account;
 import com.open.schedule.account.tables.ChangeableData;
 import com.open.schedule.account.tables.Table;
 import com.open.schedule.account.tables.Task;
-import com.open.schedule.account.tables.TimeFormat;
 import com.open.schedule.activity.UiMessageHandler;
 import com.open.schedule.activity.UiMessageType;
+import com.open.schedule.config.Config;
 import com.open.schedule.io.packet.*;
+import com.open.schedule.io.packet.client.CreateTableGroupPacket;
 import com.open.schedule.io.packet.client.CreateTablePacket;
+import com.open.schedule.io.packet.client.CreateTaskGroupPacket;
 import com.open.schedule.io.packet.client.CreateTaskPacket;
 import com.open.schedule.io.packet.client.LoginPacket;
+import com.open.schedule.io.packet.client.PingPacket;
 import com.open.schedule.io.packet.client.RegisterPacket;
+import com.open.schedule.io.packet.client.ResumePacket;
+import com.open.schedule.io.packet.client.SyncPacket;
+import com.open.schedule.io.packet.server.GlobalTableIdPacket;
+import com.open.schedule.io.packet.server.GlobalTaskIdPacket;
 import com.open.schedule.io.packet.server.LoggedPacket;
+import com.open.schedule.io.packet.server.PongPacket;
 import com.open.schedule.io.packet.server.RegisteredPacket;
+import com.open.schedule.io.packet.server.TableChangedPacket;
+import com.open.schedule.io.packet.server.TableGroupPacket;
 import com.open.schedule.io.packet.server.TablePacket;
+import com.open.schedule.io.packet.server.TaskChangedPacket;
+import com.open.schedule.io.packet.server.TaskGroupPacket;
 import com.open.schedule.io.packet.server.TaskPacket;
-import com.open.schedule.utility.Utility;
 
 import static com.open.schedule.activity.UiMessageType.*;
 
+import java.nio.channels.ClosedChannelException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
 
 @Sharable
 public class Client extends ChannelDuplexHandler {
@@ -42,26 +59,75 @@ public class Client extends ChannelDuplexHandler {
 	private final Account account;
 
 	private ChannelHandlerContext context = null;
-	private boolean logged = false;
+	// Сколько байт ждало отправки при прошлом READER_IDLE; -1, если ничего не ждало
+	private long idlePendingBytes = -1;
+	private volatile boolean logged = false;
+	private volatile String sessionToken = null;
 
-	private final HashSet<Handler> messageHandlers[] = new HashSet[UiMessageType.values().length];
+	private final SendQueue sendQueue = new SendQueue(Config.FLUSH_MAX_PACKETS, Config.FLUSH_MAX_BYTES, Config.SEND_QUEUE_MAX_BYTES);
 
-	public Client(Account account) {
-		this.account = account;
+	private final Outbox outbox;
+	private final AtomicBoolean syncScheduled = new AtomicBoolean(false);
 
-		for (int i = 0; i < this.messageHandlers.length; ++i) {
-			this.messageHandlers[i] = new HashSet<>();
+	private final Runnable syncTask = new Runnable() {
+		@Override
+		public void run() {
+			Client.this.flushSync();
 		}
+	};
+
+	private volatile long roundTripTime = 0;
+	private volatile long smoothedRoundTripTime = 0;
+
+	private final Requests requests = new Requests();
+	private final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+	public Client(Account account, Outbox outbox) {
+		this.account = account;
+		this.outbox = outbox;
 	}
 
 	@Override
 	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
 		this.context = ctx;
+		this.sendQueue.attach(ctx);
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		this.idlePendingBytes = -1;
+
+		super.channelActive(ctx);
+
+		if (this.sessionToken != null)
+			this.resume();
 	}
 
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) {
-		ServerPacket packet = (ServerPacket) msg;
+		@SuppressWarnings("unchecked")
+		List<ServerPacket> packets = (List<ServerPacket>) msg;
+
+		for (int i = 0; i < packets.size(); ++i) {
+			this.received(packets.get(i));
+		}
+
+		this.account.saveSyncTime();
+	}
+
+	// Декодер передаёт это событие после каждого чтения, даже если пакет ещё не собран целиком
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		this.idlePendingBytes = -1;
+
+		super.channelReadComplete(ctx);
+	}
+
+	private void received(ServerPacket packet) {
+		if (packet.getType() == ServerPacket.Type.PONG) {
+			this.pong((PongPacket) packet);
+			return;
+		}
 
 		if (packet.getType().needLogged && !this.isLogged()) {
 			throw new IllegalStateException("Received packets when not logged in");
@@ -76,15 +142,85 @@ public class Client extends ChannelDuplexHandler {
 			case LOGGED:
 				this.logged((LoggedPacket) packet);
 				break;
+			case GLOBAL_TABLE_ID:
+				this.globalTableId((GlobalTableIdPacket) packet);
+				break;
+			case GLOBAL_TASK_ID:
+				this.globalTaskId((GlobalTaskIdPacket) packet);
+				break;
 			case TABLE:
 				this.newTable((TablePacket) packet);
 				break;
 			case TASK:
 				this.newTask((TaskPacket) packet);
 				break;
+			case TABLE_CHANGED:
+				this.tableChanged((TableChangedPacket) packet);
+				break;
+			case TASK_CHANGED:
+				this.taskChanged((TaskChangedPacket) packet);
+				break;
+			case TABLE_GROUP:
+				for (TablePacket table : ((TableGroupPacket) packet).tables) {
+					this.newTable(table);
+				}
+				break;
+			case TASK_GROUP:
+				for (TaskPacket task : ((TaskGroupPacket) packet).tasks) {
+					this.newTask(task);
+				}
+				break;
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		this.sendQueue.writabilityChanged();
+
+		super.channelWritabilityChanged(ctx);
+	}
+
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		if (!(evt instanceof IdleStateEvent)) {
+			super.userEventTriggered(ctx, evt);
+			return;
+		}
+
+		if (((IdleStateEvent) evt).state() == IdleState.READER_IDLE) {
+			ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+			long pending = (buffer != null ? buffer.totalPendingWriteBytes() : 0);
+
+			// Во время большой выгрузки ping стоит в очереди за данными, и сервер молчит, пока их читает.
+			// Пока очередь на отправку уменьшается, соединение живо; закрываем, только если она застряла.
+			// Ping всё равно отправляется, чтобы время ответа измерялось и во время выгрузки
+			if (pending > 0 && (this.idlePendingBytes < 0 || pending < this.idlePendingBytes)) {
+				this.idlePendingBytes = pending;
+
+				ctx.writeAndFlush(new PingPacket(System.nanoTime()));
+				return;
+			}
+
+			// Сервер не ответил даже на ping: соединение считается мёртвым
+			Log.w(LOG_TAG, "Connection is idle, closing");
+
+			ctx.close();
+		} else {
+			ctx.writeAndFlush(new PingPacket(System.nanoTime()));
 		}
 	}
 
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		this.requests.failAll(new ClosedChannelException());
+		this.syncScheduled.set(false);
+
+		// Отправленное, но не подтверждённое могло потеряться вместе с соединением
+		this.outbox.resend();
+
+		super.channelInactive(ctx);
+	}
+
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
 		Log.w(LOG_TAG, "Netty Exception", cause);
@@ -101,50 +237,227 @@ public class Client extends ChannelDuplexHandler {
 	}
 
 	public void send(ClientPacket packet) {
-		short size = packet.getSize();
-
-		int bufferCapacity = (Packet.PACKET_TYPE_LENGTH + Packet.PACKET_SIZE_LENGTH + size);
+		this.sendQueue.send(packet);
+	}
 
-		ByteBuf data = this.context.alloc().buffer(bufferCapacity, bufferCapacity);
+	public long getRoundTripTime() {
+		return this.roundTripTime;
+	}
 
-		data.writeByte(packet.type.ordinal());
-		data.writeShort(size * Byte.SIZE);
-		data.writeBytes(packet.getBuffer().array(), 0, (int) size);
+	public long getSmoothedRoundTripTime() {
+		return this.smoothedRoundTripTime;
+	}
 
-		this.context.writeAndFlush(data);
+	public SendQueue getSendQueue() {
+		return this.sendQueue;
 	}
 
 	public void login(String username, String password, final UiMessageHandler activity) {
-		this.addMessageListener(UI_MESSAGE_LOGGED, activity);
+		this.login(username, password, null, new Requests.Callback<LoggedPacket>() {
+			@Override
+			public void completed(LoggedPacket response) {
+				Client.this.notify(activity, UI_MESSAGE_LOGGED, response.status);
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				Log.w(LOG_TAG, "Login request failed", cause);
+				Client.this.notify(activity, UI_MESSAGE_LOGGED, LoggedPacket.Status.FAILURE);
+			}
+		});
+	}
+
+	public void login(String username, String password, Executor executor, Requests.Callback<LoggedPacket> callback) {
+		int requestId = this.requests.register(this.context.executor(), Config.REQUEST_TIMEOUT, executor, callback);
+
+		this.send(new LoginPacket(requestId, username, password, this.account.getLastSyncTime(), Config.PROTOCOL_FEATURES));
+	}
+
+	public boolean hasSession() {
+		return (this.sessionToken != null);
+	}
+
+	public void endSession() {
+		this.sessionToken = null;
+	}
 
-		this.send(new LoginPacket(username, password, this.account.getLastSyncTime()));
+	private void resume() {
+		int requestId = this.requests.register(this.context.executor(), Config.REQUEST_TIMEOUT, null, new Requests.Callback<LoggedPacket>() {
+			@Override
+			public void completed(LoggedPacket response) {
+				if (response.status != LoggedPacket.Status.SUCCESS)
+					Log.w(LOG_TAG, "Session expired, login required");
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				Log.w(LOG_TAG, "Session resume failed", cause);
+			}
+		});
+
+		// Токен и метка синхронизации в одном пакете: сервер сразу присылает изменения после неё
+		this.send(new ResumePacket(requestId, this.sessionToken, this.account.getLastSyncTime(), Config.PROTOCOL_FEATURES));
 	}
 
 	public void register(String email, String password, String name, final UiMessageHandler activity) {
-		this.addMessageListener(UI_MESSAGE_REGISTERED, activity);
+		this.register(email, password, null, new Requests.Callback<RegisteredPacket>() {
+			@Override
+			public void completed(RegisteredPacket response) {
+				Client.this.notify(activity, UI_MESSAGE_REGISTERED, response.status);
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				Log.w(LOG_TAG, "Register request failed", cause);
+				Client.this.notify(activity, UI_MESSAGE_REGISTERED, RegisteredPacket.Status.FAILURE);
+			}
+		});
+	}
+
+	public void register(String email, String password, Executor executor, Requests.Callback<RegisteredPacket> callback) {
+		int requestId = this.requests.register(this.context.executor(), Config.REQUEST_TIMEOUT, executor, callback);
+
+		this.send(new RegisterPacket(requestId, email, password));
+	}
+
+	// TODO: ответы на синхронизацию и создание записей не несут номер запроса и сопоставляются по порядку прихода,
+	// без тайм-аута. Повтор гарантирован только после разрыва соединения (outbox.resend), см. README
+	public void requestSync() {
+		this.send(new SyncPacket(SyncPacket.ALL_TABLES, this.account.getLastSyncTime()));
+	}
+
+	public void requestSync(Table table) {
+		// Таблица, ещё не подтверждённая сервером, есть только здесь: синхронизировать нечего
+		if (table.getGlobalId() == ChangeableData.NO_ID)
+			return;
 
-		this.send(new RegisterPacket(email, password));
+		this.send(new SyncPacket(table.getGlobalId(), table.getSyncTime()));
 	}
 
 	public void sync(ChangeableData data) {
-		if (!this.logged)
+		this.outbox.add(data, this.tableGlobalId(data));
+
+		this.scheduleSync();
+	}
+
+	// Изменения тоже идут через очередь: она переживает разрыв соединения и перезапуск
+	public void syncChange(ChangeableData data, ChangeableData.Change change) {
+		this.outbox.addChange(data, change, this.tableGlobalId(data));
+
+		this.scheduleSync();
+	}
+
+	private int tableGlobalId(ChangeableData data) {
+		if (data instanceof Table)
+			return data.getGlobalId();
+
+		Table table = this.account.getTable(((Task) data).getTableId());
+		return (table != null ? table.getGlobalId() : ChangeableData.NO_ID);
+	}
+
+	private void scheduleSync() {
+		if (!this.logged || !this.outbox.hasReady())
+			return;
+
+		if (this.syncScheduled.compareAndSet(false, true))
+			this.context.executor().execute(this.syncTask);
+	}
+
+	private void flushSync() {
+		this.syncScheduled.set(false);
+
+		if (!this.logged || !this.outbox.hasReady())
+			return;
+
+		// Очередь отправки переполнена: продолжим, когда канал освободится
+		if (!this.sendQueue.isAccepting()) {
+			if (this.syncScheduled.compareAndSet(false, true))
+				this.sendQueue.whenAccepting(this.syncTask);
+			return;
+		}
+
+		ArrayList<CreateTablePacket> tables = new ArrayList<>();
+		ArrayList<CreateTaskPacket> tasks = new ArrayList<>();
+
+		for (Outbox.Record record : this.outbox.drain(Config.SYNC_CHUNK_RECORDS)) {
+			if (record.isChange()) {
+				// Порядок очереди сохраняется: изменение не должно обогнать создание своей записи
+				this.sendTables(tables);
+				this.sendTasks(tasks);
+
+				tables.clear();
+				tasks.clear();
+
+				this.send(record.toPacket());
+			} else if (record.isTable()) {
+				tables.add((CreateTablePacket) record.toPacket());
+			} else {
+				tasks.add((CreateTaskPacket) record.toPacket());
+			}
+		}
+
+		this.sendTables(tables);
+		this.sendTasks(tasks);
+
+		this.scheduleSync();
+	}
+
+	private void sendTables(ArrayList<CreateTablePacket> tables) {
+		if (tables.isEmpty())
+			return;
+
+		if (tables.size() == 1) {
+			this.send(tables.get(0));
+			return;
+		}
+
+		int features = Feature.negotiated(this.context.channel());
+		CreateTableGroupPacket group = new CreateTableGroupPacket(features);
+
+		for (CreateTablePacket table : tables) {
+			if (!group.add(table)) {
+				this.send(group);
+
+				group = new CreateTableGroupPacket(features);
+				group.add(table);
+			}
+		}
+
+		if (group.count() > 0)
+			this.send(group);
+	}
+
+	private void sendTasks(ArrayList<CreateTaskPacket> tasks) {
+		if (tasks.isEmpty())
 			return;
 
-		int id = data.getId();
-		ChangeableData.Change info = data.getData();
+		if (tasks.size() == 1) {
+			this.send(tasks.get(0));
+			return;
+		}
 
-		if (data instanceof Table) {
-			Table.TableChange tableInfo = (Table.TableChange) info;
+		int features = Feature.negotiated(this.context.channel());
+		CreateTaskGroupPacket group = new CreateTaskGroupPacket(features);
 
-			this.send(new CreateTablePacket(id, tableInfo.time, tableInfo.name, tableInfo.description));
-		} else if (data instanceof Task) {
-			Task.TaskChange taskInfo = (Task.TaskChange) info;
+		for (CreateTaskPacket task : tasks) {
+			if (!group.add(task)) {
+				this.send(group);
 
-			this.send(new CreateTaskPacket(id, ((Task) data).getTableId(), taskInfo.time, taskInfo.name, taskInfo.description,
-					taskInfo.startDate, taskInfo.endDate,
-					taskInfo.startTime, taskInfo.endTime,
-					taskInfo.period));
+				group = new CreateTaskGroupPacket(features);
+				group.add(task);
+			}
 		}
+
+		if (group.count() > 0)
+			this.send(group);
+	}
+
+	private void pong(PongPacket packet) {
+		long rtt = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - packet.time);
+
+		this.roundTripTime = rtt;
+		// Сглаживание как у SRTT в TCP: новое значение входит с весом 1/8
+		this.smoothedRoundTripTime = (this.smoothedRoundTripTime == 0 ? rtt : this.smoothedRoundTripTime + (rtt - this.smoothedRoundTripTime) / 8);
 	}
 
 	private void registered(RegisteredPacket packet) {
@@ -157,7 +470,7 @@ public class Client extends ChannelDuplexHandler {
 				break;
 		}
 
-		this.notify(UI_MESSAGE_REGISTERED, packet.status);
+		this.requests.complete(packet.requestId, packet);
 	}
 
 	private void logged(LoggedPacket packet) {
@@ -167,53 +480,119 @@ public class Client extends ChannelDuplexHandler {
 
 				logged = true;
 
-				this.account.setId(packet.id);
+				// Отметка, отправленная при входе, относилась к другому аккаунту: запрашиваем всё заново
+				if (this.account.setId(packet.id))
+					this.requestSync();
+
+				if (packet.sessionToken != null)
+					this.sessionToken = packet.sessionToken;
+
+				if (Feature.COMPRESSION.in(packet.features & Config.PROTOCOL_FEATURES))
+					this.context.pipeline().addBefore(ServerConnection.ENCODER, ServerConnection.COMPRESSOR, new PacketCompressor(Config.COMPRESSION_THRESHOLD));
+
+				this.scheduleSync();
 				break;
 			case FAILURE:
 				Log.w(LOG_TAG, "Wrong username or password");
+
+				this.sessionToken = null;
 				break;
 		}
 
-		this.notify(UI_MESSAGE_LOGGED, packet.status);
+		this.requests.complete(packet.requestId, packet);
 	}
 
 	private void newTable(TablePacket packet) {
-		this.account.createTable(packet.name, packet.description, packet.creatorId, false);
+		Table table = this.account.getTableByGlobalId(packet.tableGlobalId);
+
+		if (table == null) {
+			int tableId = this.account.createTable(packet.name, packet.description, packet.creatorId, packet.time, false);
+			this.account.setTableGlobalId(tableId, packet.tableGlobalId);
+
+			table = this.account.getTable(tableId);
+		}
+
+		this.account.advanceSyncTime(table.getId(), packet.time);
 	}
 
 	private void newTask(TaskPacket packet) {
-		Date startDate = Utility.parseToDate(packet.startDate, TimeFormat.DATE_FORMATTER);
-		Date endDate = Utility.parseToDate(packet.endDate, TimeFormat.DATE_FORMATTER);
-		Date startTime = Utility.parseToDate(packet.startTime, TimeFormat.TIME_FORMATTER);
-		Date endTime = Utility.parseToDate(packet.endTime, TimeFormat.TIME_FORMATTER);
+		Table table = this.account.getTableByGlobalId(packet.tableGlobalId);
+
+		if (table == null) {
+			Log.w(LOG_TAG, "Task " + packet.taskGlobalId + " received for unknown table " + packet.tableGlobalId);
+			return;
+		}
+
+		if (table.getTaskByGlobalId(packet.taskGlobalId) == null) {
+			int taskId = this.account.createTask(table.getId(), packet.name, packet.description, packet.creatorId,
+					packet.startDate, packet.endDate, packet.startTime, packet.endTime, packet.period, packet.time, false);
+			this.account.setTaskGlobalId(table.getId(), taskId, packet.taskGlobalId);
+		}
 
-		this.account.createTask(packet.tableId, packet.name, packet.description, packet.creatorId,
-				startDate, endDate, startTime, endTime, packet.period, false);
+		this.account.advanceSyncTime(table.getId(), packet.time);
 	}
 
-	private void addMessageListener(final UiMessageType messageType, final UiMessageHandler activity) {
-		HashSet<Handler> handlers = this.messageHandlers[messageType.ordinal()];
+	private void tableChanged(TableChangedPacket packet) {
+		Table table = this.account.getTableByGlobalId(packet.tableGlobalId);
 
-		synchronized (handlers) {
-			handlers.add(new Handler(Looper.getMainLooper()) {
-				@Override
-				public void handleMessage(Message inputMessage) {
-					activity.handleMessage(inputMessage);
-				}
-			});
+		if (table == null) {
+			Log.w(LOG_TAG, "Change received for unknown table " + packet.tableGlobalId);
+			return;
 		}
-	}
 
-	private void notify(UiMessageType messageType, Object data) {
-		HashSet<Handler> handlers = this.messageHandlers[messageType.ordinal()];
+		this.account.changeTable(table.getId(), packet.creatorId, packet.time, packet.name, packet.description, false);
+		this.account.advanceSyncTime(table.getId(), packet.time);
 
-		synchronized (handlers) {
-			for (Handler handler : handlers) {
-				Message message = handler.obtainMessage(messageType.ordinal(), data);
-				message.sendToTarget();
-			}
+		if (packet.creatorId == this.account.getId())
+			this.outbox.acknowledgeTableChange(packet.tableGlobalId, packet.time);
+	}
 
-			handlers.clear();
+	private void taskChanged(TaskChangedPacket packet) {
+		Table table = this.account.getTableByGlobalId(packet.tableGlobalId);
+		Task task = (table == null ? null : table.getTaskByGlobalId(packet.taskGlobalId));
+
+		if (task == null) {
+			Log.w(LOG_TAG, "Change received for unknown task " + packet.taskGlobalId + " of table " + packet.tableGlobalId);
+			return;
 		}
+
+		this.account.changeTask(table.getId(), task.getId(), packet.creatorId, packet.time, packet.name, packet.description,
+				packet.startDate, packet.endDate, packet.startTime, packet.endTime, packet.period, false);
+		this.account.advanceSyncTime(table.getId(), packet.time);
+
+		if (packet.creatorId == this.account.getId())
+			this.outbox.acknowledgeTaskChange(packet.taskGlobalId, packet.time);
+	}
+
+	private void globalTableId(GlobalTableIdPacket packet) {
+		this.account.setTableGlobalId(packet.tableId, packet.tableGlobalId);
+		this.outbox.acknowledgeTable(packet.tableId, packet.tableGlobalId);
+
+		// Задания и изменения этой таблицы ждали её глобального идентификатора
+		this.scheduleSync();
+	}
+
+	private void globalTaskId(GlobalTaskIdPacket packet) {
+		// Задание создаётся в таблице с глобальным идентификатором, сервер возвращает его же
+		Table table = this.account.getTableByGlobalId(packet.tableId);
+
+		if (table != null)
+			this.account.setTaskGlobalId(table.getId(), packet.taskId, packet.taskGlobalId);
+
+		this.outbox.acknowledgeTask(packet.taskId, packet.taskGlobalId);
+		this.scheduleSync();
+	}
+
+	private void notify(final UiMessageHandler activity, final UiMessageType messageType, final Object data) {
+		this.uiHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				Message message = Message.obtain();
+				message.what = messageType.ordinal();
+				message.obj = data;
+
+				activity.handleMessage(message);
+			}
+		});
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,597 @@
+package com.open.schedule.io;
+
+import android.util.Log;
+
+import com.open.schedule.account.tables.ChangeableData;
+import com.open.schedule.account.tables.Table;
+import com.open.schedule.account.tables.Task;
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.client.CreateTablePacket;
+import com.open.schedule.io.packet.client.CreateTaskPacket;
+import com.open.schedule.io.packet.client.TableChangePacket;
+import com.open.schedule.io.packet.client.TaskChangePacket;
+import com.open.schedule.utility.IntIntMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+public class Outbox {
+	private final static String LOG_TAG = Outbox.class.getName();
+
+	private static final byte ENTRY_RECORD = 0;
+	private static final byte ENTRY_ACK = 1;
+
+	private static final byte KIND_TABLE = 0;
+	private static final byte KIND_TASK = 1;
+	private static final byte KIND_TABLE_CHANGE = 2;
+	private static final byte KIND_TASK_CHANGE = 3;
+
+	// Файл переписывается, когда подтверждений в нём накопилось больше, чем живых записей
+	private static final int COMPACT_MIN_ACKS = 64;
+
+	private final File file;
+
+	// Записи в порядке добавления; удаляются только после подтверждения сервером
+	private final LinkedHashMap<Long, Record> records = new LinkedHashMap<>();
+	private final HashMap<Long, Record> creates = new HashMap<>();
+	private final HashMap<Long, Record> changes = new HashMap<>();
+	// Глобальные идентификаторы, выданные сервером в этом запуске: запись, добавленная после ответа, берёт их отсюда
+	private final IntIntMap tableGlobalIds = new IntIntMap();
+	private final IntIntMap taskGlobalIds = new IntIntMap();
+	private long nextSequence = 0;
+	private int unsent = 0;
+	private int acks = 0;
+
+	// Диск трогает только этот поток: add() вызывается из потока интерфейса
+	private final ExecutorService io = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "outbox");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private DataOutputStream output = null;
+
+	public Outbox(File file) {
+		this.file = file;
+
+		this.load();
+	}
+
+	// Сервер знает записи только по глобальным идентификаторам; tableGlobalId равен NO_ID, пока таблица не подтверждена
+	public synchronized void add(ChangeableData data, int tableGlobalId) {
+		final Record record;
+
+		if (data instanceof Table) {
+			record = new Record(this.nextSequence++, (Table) data);
+		} else if (data instanceof Task) {
+			record = new Record(this.nextSequence++, (Task) data, this.resolveTable(((Task) data).getTableId(), tableGlobalId));
+		} else {
+			return;
+		}
+
+		this.put(record);
+		this.write(record);
+	}
+
+	// Изменение хранится по полям: отправляется только то, что поменялось
+	public synchronized void addChange(ChangeableData data, ChangeableData.Change change, int tableGlobalId) {
+		byte kind;
+
+		if (data instanceof Table) {
+			kind = KIND_TABLE_CHANGE;
+		} else if (data instanceof Task) {
+			kind = KIND_TASK_CHANGE;
+		} else {
+			return;
+		}
+
+		Record pending = this.changes.get(key(kind, data.getId()));
+		Record record;
+
+		if (kind == KIND_TABLE_CHANGE) {
+			record = new Record(this.nextSequence, (Table) data, (Table.TableChange) change,
+					this.resolveTable(data.getId(), tableGlobalId));
+		} else {
+			Task task = (Task) data;
+			int taskGlobalId = (task.getGlobalId() != ChangeableData.NO_ID ? task.getGlobalId() : this.taskGlobalIds.get(task.getId(), ChangeableData.NO_ID));
+
+			record = new Record(this.nextSequence, task, (Task.TaskChange) change, taskGlobalId,
+					this.resolveTable(task.getTableId(), tableGlobalId));
+		}
+
+		// Ещё не отправленное изменение той же записи дополняется на своём месте в очереди
+		if (pending != null && !pending.sent)
+			record = pending.mergedWith(record);
+		else
+			this.nextSequence++;
+
+		this.put(record);
+		this.write(record);
+	}
+
+	public synchronized int size() {
+		return this.records.size();
+	}
+
+	// Есть что отправить прямо сейчас: первая неотправленная запись не ждёт глобального идентификатора
+	public synchronized boolean hasReady() {
+		if (this.unsent == 0)
+			return false;
+
+		for (Record record : this.records.values()) {
+			if (!record.sent)
+				return record.isReady();
+		}
+
+		return false;
+	}
+
+	// Записи помечаются отправленными, но остаются в очереди до подтверждения.
+	// Выдача останавливается на первой записи без глобального идентификатора, чтобы не нарушить порядок
+	public synchronized ArrayList<Record> drain(int maxRecords) {
+		ArrayList<Record> result = new ArrayList<>(Math.min(maxRecords, this.unsent));
+
+		for (Record record : this.records.values()) {
+			if (result.size() == maxRecords)
+				break;
+
+			if (record.sent)
+				continue;
+
+			if (!record.isReady())
+				break;
+
+			record.sent = true;
+			result.add(record);
+		}
+
+		this.unsent -= result.size();
+		return result;
+	}
+
+	// Соединение потеряно: всё неподтверждённое будет отправлено заново после входа
+	public synchronized void resend() {
+		for (Record record : this.records.values()) {
+			record.sent = false;
+		}
+
+		this.unsent = this.records.size();
+	}
+
+	// Подтверждение создания выдаёт глобальный идентификатор: ждавшие его задания и изменения становятся готовыми
+	public synchronized void acknowledgeTable(int tableId, int tableGlobalId) {
+		this.acknowledge(this.creates.get(key(KIND_TABLE, tableId)));
+		this.tableGlobalIds.put(tableId, tableGlobalId);
+
+		for (Record record : new ArrayList<>(this.records.values())) {
+			if (record.tableId == tableId && record.tableGlobalId == ChangeableData.NO_ID) {
+				int globalId = (record.kind == KIND_TABLE_CHANGE ? tableGlobalId : record.globalId);
+				this.replace(record.withGlobalIds(globalId, tableGlobalId));
+			}
+		}
+	}
+
+	public synchronized void acknowledgeTask(int taskId, int taskGlobalId) {
+		this.acknowledge(this.creates.get(key(KIND_TASK, taskId)));
+		this.taskGlobalIds.put(taskId, taskGlobalId);
+
+		for (Record record : new ArrayList<>(this.records.values())) {
+			if (record.kind == KIND_TASK_CHANGE && record.id == taskId && record.globalId == ChangeableData.NO_ID)
+				this.replace(record.withGlobalIds(taskGlobalId, record.tableGlobalId));
+		}
+	}
+
+	// Сервер рассылает изменение всем клиентам, включая автора: эхо подтверждает самое старое отправленное с тем же временем
+	public synchronized void acknowledgeTableChange(int tableGlobalId, long time) {
+		this.acknowledge(this.findSentChange(KIND_TABLE_CHANGE, tableGlobalId, time));
+	}
+
+	public synchronized void acknowledgeTaskChange(int taskGlobalId, long time) {
+		this.acknowledge(this.findSentChange(KIND_TASK_CHANGE, taskGlobalId, time));
+	}
+
+	// Дожидается, пока поток диска допишет всё поставленное до этого вызова
+	void awaitWrites() throws InterruptedException, ExecutionException {
+		this.io.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}).get();
+	}
+
+	private Record findSentChange(byte kind, int globalId, long time) {
+		for (Record record : this.records.values()) {
+			if (record.kind == kind && record.globalId == globalId && record.time == time && record.sent)
+				return record;
+		}
+
+		return null;
+	}
+
+	private int resolveTable(int tableId, int tableGlobalId) {
+		return (tableGlobalId != ChangeableData.NO_ID ? tableGlobalId : this.tableGlobalIds.get(tableId, ChangeableData.NO_ID));
+	}
+
+	private void replace(Record record) {
+		this.put(record);
+		this.write(record);
+	}
+
+	private void put(Record record) {
+		// Запись с уже известным номером заменяет прежнюю, не меняя её места в очереди
+		if (this.records.put(record.sequence, record) == null)
+			this.unsent++;
+
+		this.index(record).put(key(record.kind, record.id), record);
+	}
+
+	private void remove(Record record) {
+		this.records.remove(record.sequence);
+
+		HashMap<Long, Record> index = this.index(record);
+		if (index.get(key(record.kind, record.id)) == record)
+			index.remove(key(record.kind, record.id));
+
+		if (!record.sent)
+			this.unsent--;
+	}
+
+	private HashMap<Long, Record> index(Record record) {
+		return (record.isChange() ? this.changes : this.creates);
+	}
+
+	private void write(final Record record) {
+		this.io.execute(new Runnable() {
+			@Override
+			public void run() {
+				Outbox.this.append(record);
+			}
+		});
+	}
+
+	private void acknowledge(Record record) {
+		if (record == null)
+			return;
+
+		final long sequence = record.sequence;
+
+		this.remove(record);
+
+		if (++this.acks >= COMPACT_MIN_ACKS && this.acks > this.records.size()) {
+			final ArrayList<Record> snapshot = new ArrayList<>(this.records.values());
+			this.acks = 0;
+
+			this.io.execute(new Runnable() {
+				@Override
+				public void run() {
+					Outbox.this.rewrite(snapshot);
+				}
+			});
+			return;
+		}
+
+		this.io.execute(new Runnable() {
+			@Override
+			public void run() {
+				Outbox.this.appendAck(sequence);
+			}
+		});
+	}
+
+	private void append(Record record) {
+		try {
+			DataOutputStream output = this.output();
+
+			output.writeByte(ENTRY_RECORD);
+			record.write(output);
+			output.flush();
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "Exception on writing outbox", e);
+		}
+	}
+
+	private void appendAck(long sequence) {
+		try {
+			DataOutputStream output = this.output();
+
+			output.writeByte(ENTRY_ACK);
+			output.writeLong(sequence);
+			output.flush();
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "Exception on writing outbox", e);
+		}
+	}
+
+	private void rewrite(ArrayList<Record> records) {
+		File temporary = new File(this.file.getPath() + ".tmp");
+
+		try {
+			if (this.output != null) {
+				this.output.close();
+				this.output = null;
+			}
+
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary, false)));
+
+			try {
+				for (Record record : records) {
+					output.writeByte(ENTRY_RECORD);
+					record.write(output);
+				}
+			} finally {
+				output.close();
+			}
+
+			// Переименование атомарно: при падении остаётся либо старый, либо новый файл целиком
+			if (!temporary.renameTo(this.file))
+				throw new IOException("Cannot replace " + this.file);
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "Exception on compacting outbox", e);
+		}
+	}
+
+	private DataOutputStream output() throws IOException {
+		if (this.output == null)
+			this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file, true)));
+
+		return this.output;
+	}
+
+	private void load() {
+		if (!this.file.exists())
+			return;
+
+		DataInputStream input = null;
+		boolean damaged = false;
+
+		try {
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+
+			for (int entry = input.read(); entry >= 0; entry = input.read()) {
+				if (entry == ENTRY_ACK) {
+					Record record = this.records.get(input.readLong());
+
+					if (record != null)
+						this.remove(record);
+
+					this.acks++;
+					continue;
+				}
+
+				Record record = Record.read(input);
+
+				this.put(record);
+				this.nextSequence = Math.max(this.nextSequence, record.sequence + 1);
+			}
+		} catch (EOFException e) {
+			// Недописанная последняя запись: дописывать после неё нельзя
+			damaged = true;
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "Exception on reading outbox", e);
+			damaged = true;
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					Log.w(LOG_TAG, "Exception on closing outbox", e);
+				}
+			}
+		}
+
+		if (damaged) {
+			final ArrayList<Record> snapshot = new ArrayList<>(this.records.values());
+			this.acks = 0;
+
+			this.io.execute(new Runnable() {
+				@Override
+				public void run() {
+					Outbox.this.rewrite(snapshot);
+				}
+			});
+		}
+	}
+
+	private static long key(byte kind, int id) {
+		return ((long) kind << 32) | (id & 0xFFFFFFFFL);
+	}
+
+	public static class Record {
+		public final long sequence;
+		public final byte kind;
+		public final int id;
+		public final int tableId;
+		public final int globalId;
+		public final int tableGlobalId;
+		public final long time;
+
+		public final String name;
+		public final String description;
+		public final Date startDate;
+		public final Date endDate;
+		public final Date startTime;
+		public final Date endTime;
+		public final Short period;
+
+		private boolean sent = false;
+
+		private Record(long sequence, byte kind, int id, int tableId, int globalId, int tableGlobalId, long time,
+					   String name, String description, Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
+			this.sequence = sequence;
+			this.kind = kind;
+			this.id = id;
+			this.tableId = tableId;
+			this.globalId = globalId;
+			this.tableGlobalId = tableGlobalId;
+			this.time = time;
+			this.name = name;
+			this.description = description;
+			this.startDate = startDate;
+			this.endDate = endDate;
+			this.startTime = startTime;
+			this.endTime = endTime;
+			this.period = period;
+		}
+
+		private Record(long sequence, Table table) {
+			this(sequence, KIND_TABLE, table.getId(), table.getId(), ChangeableData.NO_ID, ChangeableData.NO_ID, table.getData().time,
+					((Table.TableChange) table.getData()).name, ((Table.TableChange) table.getData()).description,
+					null, null, null, null, null);
+		}
+
+		private Record(long sequence, Table table, Table.TableChange change, int tableGlobalId) {
+			this(sequence, KIND_TABLE_CHANGE, table.getId(), table.getId(), tableGlobalId, tableGlobalId, change.time,
+					change.name, change.description, null, null, null, null, null);
+		}
+
+		private Record(long sequence, Task task, Task.TaskChange change, int taskGlobalId, int tableGlobalId) {
+			this(sequence, KIND_TASK_CHANGE, task.getId(), task.getTableId(), taskGlobalId, tableGlobalId, change.time,
+					change.name, change.description, change.startDate, change.endDate, change.startTime, change.endTime, change.period);
+		}
+
+		private Record(long sequence, Task task, int tableGlobalId) {
+			this(sequence, KIND_TASK, task.getId(), task.getTableId(), ChangeableData.NO_ID, tableGlobalId, task.getData().time,
+					((Task.TaskChange) task.getData()).name, ((Task.TaskChange) task.getData()).description,
+					((Task.TaskChange) task.getData()).startDate, ((Task.TaskChange) task.getData()).endDate,
+					((Task.TaskChange) task.getData()).startTime, ((Task.TaskChange) task.getData()).endTime,
+					((Task.TaskChange) task.getData()).period);
+		}
+
+		public boolean isTable() {
+			return (this.kind == KIND_TABLE || this.kind == KIND_TABLE_CHANGE);
+		}
+
+		public boolean isChange() {
+			return (this.kind == KIND_TABLE_CHANGE || this.kind == KIND_TASK_CHANGE);
+		}
+
+		// Создание таблицы сервер сопоставляет по локальному идентификатору, всё остальное — по глобальным
+		public boolean isReady() {
+			switch (this.kind) {
+				case KIND_TABLE:
+					return true;
+				case KIND_TASK:
+					return (this.tableGlobalId != ChangeableData.NO_ID);
+			}
+
+			return (this.globalId != ChangeableData.NO_ID && this.tableGlobalId != ChangeableData.NO_ID);
+		}
+
+		public ClientPacket toPacket() {
+			switch (this.kind) {
+				case KIND_TABLE:
+					return new CreateTablePacket(this.id, this.time, this.name, this.description);
+				case KIND_TABLE_CHANGE:
+					return new TableChangePacket(this.globalId, this.time, this.name, this.description);
+				case KIND_TASK_CHANGE:
+					return new TaskChangePacket(this.globalId, this.tableGlobalId, this.time, this.name, this.description,
+							this.startDate, this.endDate, this.startTime, this.endTime, this.period);
+			}
+
+			return new CreateTaskPacket(this.id, this.tableGlobalId, this.time, this.name, this.description,
+					this.startDate, this.endDate, this.startTime, this.endTime, this.period);
+		}
+
+		private Record withGlobalIds(int globalId, int tableGlobalId) {
+			Record record = new Record(this.sequence, this.kind, this.id, this.tableId, globalId, tableGlobalId, this.time,
+					this.name, this.description, this.startDate, this.endDate, this.startTime, this.endTime, this.period);
+			record.sent = this.sent;
+
+			return record;
+		}
+
+		// Поля более позднего изменения перекрывают поля этого, время берётся позднее
+		private Record mergedWith(Record next) {
+			return new Record(this.sequence, this.kind, this.id, this.tableId,
+					(this.globalId != ChangeableData.NO_ID ? this.globalId : next.globalId),
+					(this.tableGlobalId != ChangeableData.NO_ID ? this.tableGlobalId : next.tableGlobalId),
+					next.time,
+					(next.name != null ? next.name : this.name),
+					(next.description != null ? next.description : this.description),
+					(next.startDate != null ? next.startDate : this.startDate),
+					(next.endDate != null ? next.endDate : this.endDate),
+					(next.startTime != null ? next.startTime : this.startTime),
+					(next.endTime != null ? next.endTime : this.endTime),
+					(next.period != null ? next.period : this.period));
+		}
+
+		private void write(DataOutputStream output) throws IOException {
+			output.writeLong(this.sequence);
+			output.writeByte(this.kind);
+			output.writeInt(this.id);
+			output.writeInt(this.tableId);
+			output.writeInt(this.globalId);
+			output.writeInt(this.tableGlobalId);
+			output.writeLong(this.time);
+
+			writeString(output, this.name);
+			writeString(output, this.description);
+			writeDate(output, this.startDate);
+			writeDate(output, this.endDate);
+			writeDate(output, this.startTime);
+			writeDate(output, this.endTime);
+
+			output.writeBoolean(this.period != null);
+			if (this.period != null)
+				output.writeShort(this.period);
+		}
+
+		private static Record read(DataInputStream input) throws IOException {
+			long sequence = input.readLong();
+			byte kind = input.readByte();
+			int id = input.readInt();
+			int tableId = input.readInt();
+			int globalId = input.readInt();
+			int tableGlobalId = input.readInt();
+			long time = input.readLong();
+
+			String name = readString(input);
+			String description = readString(input);
+			Date startDate = readDate(input);
+			Date endDate = readDate(input);
+			Date startTime = readDate(input);
+			Date endTime = readDate(input);
+			Short period = (input.readBoolean() ? input.readShort() : null);
+
+			return new Record(sequence, kind, id, tableId, globalId, tableGlobalId, time, name, description, startDate, endDate, startTime, endTime, period);
+		}
+
+		private static void writeString(DataOutputStream output, String value) throws IOException {
+			output.writeBoolean(value != null);
+			if (value != null)
+				output.writeUTF(value);
+		}
+
+		private static String readString(DataInputStream input) throws IOException {
+			return (input.readBoolean() ? input.readUTF() : null);
+		}
+
+		private static void writeDate(DataOutputStream output, Date value) throws IOException {
+			output.writeBoolean(value != null);
+			if (value != null)
+				output.writeLong(value.getTime());
+		}
+
+		private static Date readDate(DataInputStream input) throws IOException {
+			return (input.readBoolean() ? new Date(input.readLong()) : null);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.open.schedule.io;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Packet;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+public class PacketCompressor extends MessageToMessageEncoder<ByteBuf> {
+	private static final int HEADER_LENGTH = Packet.PACKET_TYPE_LENGTH + Packet.PACKET_SIZE_LENGTH;
+
+	private final int threshold;
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final byte[] input = new byte[ClientPacket.MAX_PACKET_SIZE];
+	private final byte[] output = new byte[ClientPacket.MAX_PACKET_SIZE];
+
+	public PacketCompressor(int threshold) {
+		this.threshold = threshold;
+	}
+
+	@Override
+	protected void encode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) throws Exception {
+		int length = frame.readableBytes() - HEADER_LENGTH;
+
+		if (length < this.threshold) {
+			out.add(frame.retain());
+			return;
+		}
+
+		int compressedLength = this.deflate(frame, length);
+
+		if (compressedLength < 0 || Packet.PACKET_SIZE_LENGTH + compressedLength >= length) {
+			out.add(frame.retain());
+			return;
+		}
+
+		int size = Packet.PACKET_SIZE_LENGTH + compressedLength;
+		ByteBuf compressed = ctx.alloc().ioBuffer(HEADER_LENGTH + size, HEADER_LENGTH + size);
+
+		compressed.writeByte(frame.getUnsignedByte(frame.readerIndex()) | Packet.PACKET_COMPRESSED_FLAG);
+		compressed.writeShort(size);
+		compressed.writeShort(length);
+		compressed.writeBytes(this.output, 0, compressedLength);
+
+		out.add(compressed);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		this.deflater.end();
+	}
+
+	private int deflate(ByteBuf frame, int length) {
+		frame.getBytes(frame.readerIndex() + HEADER_LENGTH, this.input, 0, length);
+
+		this.deflater.reset();
+		this.deflater.setInput(this.input, 0, length);
+		this.deflater.finish();
+
+		int compressedLength = this.deflater.deflate(this.output, 0, this.output.length);
+
+		return (this.deflater.finished() ? compressedLength : -1);
+	}
+}
@@ -1,42 +1,119 @@
 package com.open.schedule.io;
 
-import android.util.Log;
-
+import com.open.schedule.config.Config;
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Packet;
 import com.open.schedule.io.packet.ServerPacket;
+import com.open.schedule.io.packet.server.LoggedPacket;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Inflater;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ReplayingDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
 
-public class PacketDecoder extends ReplayingDecoder<PacketDecoderState> {
-	private ServerPacket.Type type;
-	private short length;
+public class PacketDecoder extends ByteToMessageDecoder {
+	private static final int HEADER_LENGTH = Packet.PACKET_TYPE_LENGTH + Packet.PACKET_SIZE_LENGTH;
 
-	public PacketDecoder() {
-		super(PacketDecoderState.STATE_READ_TYPE);
-	}
+	private Inflater inflater = null;
+	private byte[] input = null;
 
 	@Override
 	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-		switch (this.state()) {
-			case STATE_READ_TYPE:
-				this.type = ServerPacket.Type.values()[in.readByte()];
-				this.checkpoint(PacketDecoderState.STATE_READ_LENGTH);
-			case STATE_READ_LENGTH:
-				this.length = in.readShort();
-				this.checkpoint(PacketDecoderState.STATE_READ_CONTENT);
-			case STATE_READ_CONTENT:
-				byte[] data = new byte[this.length];
-				in.readBytes(data, 0, this.length);
-
-				out.add(ServerPacket.get(this.type, data));
-
-				Log.d("PacketDecoder", "Packet with type " + this.type.toString() + " received");
-
-				this.checkpoint(PacketDecoderState.STATE_READ_TYPE);
+		ArrayList<ServerPacket> packets = null;
+		int features = Feature.negotiated(ctx.channel());
+
+		while (in.readableBytes() >= HEADER_LENGTH) {
+			int start = in.readerIndex();
+			int typeId = in.getUnsignedByte(start);
+			boolean compressed = (typeId & Packet.PACKET_COMPRESSED_FLAG) != 0;
+
+			typeId &= ~Packet.PACKET_COMPRESSED_FLAG;
+			int length = in.getUnsignedShort(start + Packet.PACKET_TYPE_LENGTH);
+
+			ServerPacket.Type type = ServerPacket.Type.get(typeId);
+
+			if (type == null || !type.isSupported())
+				throw new CorruptedFrameException("Unknown packet type " + typeId);
+
+			if (compressed && !Feature.COMPRESSION.in(features))
+				throw new CorruptedFrameException("Compressed packet without negotiated compression");
+
+			if (length > ClientPacket.MAX_PACKET_SIZE)
+				throw new TooLongFrameException("Packet length " + length + " exceeds " + ClientPacket.MAX_PACKET_SIZE);
+
+			if (in.readableBytes() < HEADER_LENGTH + length)
+				break;
+
+			in.skipBytes(HEADER_LENGTH);
+
+			ByteBuf data = (compressed ? this.inflate(ctx, in, length) : in.readSlice(length).retain());
+
+			try {
+				if (packets == null)
+					packets = new ArrayList<>();
+
+				ServerPacket packet = ServerPacket.get(type, data, features);
+				packets.add(packet);
+
+				if (packet.getType() == ServerPacket.Type.LOGGED && ((LoggedPacket) packet).status == LoggedPacket.Status.SUCCESS) {
+					features = ((LoggedPacket) packet).features & Config.PROTOCOL_FEATURES;
+					ctx.channel().attr(Feature.ATTRIBUTE).set(features);
+				}
+			} finally {
+				data.release();
+			}
 		}
+
+		if (packets != null)
+			out.add(packets);
 	}
-}
 
+	@Override
+	protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+		if (this.inflater != null)
+			this.inflater.end();
+	}
+
+	private ByteBuf inflate(ChannelHandlerContext ctx, ByteBuf in, int length) throws Exception {
+		if (length < Packet.PACKET_SIZE_LENGTH)
+			throw new CorruptedFrameException("Compressed packet is too short");
+
+		int originalLength = in.readUnsignedShort();
+		int compressedLength = length - Packet.PACKET_SIZE_LENGTH;
+
+		if (originalLength > ClientPacket.MAX_PACKET_SIZE)
+			throw new TooLongFrameException("Packet length " + originalLength + " exceeds " + ClientPacket.MAX_PACKET_SIZE);
+
+		if (this.inflater == null) {
+			this.inflater = new Inflater();
+			this.input = new byte[ClientPacket.MAX_PACKET_SIZE];
+		}
+
+		in.readBytes(this.input, 0, compressedLength);
+
+		ByteBuf data = ctx.alloc().heapBuffer(originalLength, originalLength);
+
+		try {
+			this.inflater.reset();
+			this.inflater.setInput(this.input, 0, compressedLength);
+
+			int inflated = this.inflater.inflate(data.array(), data.arrayOffset(), originalLength);
+
+			if (inflated != originalLength || !this.inflater.finished())
+				throw new CorruptedFrameException("Compressed packet does not match its declared length");
+
+			data.writerIndex(originalLength);
+		} catch (Exception e) {
+			data.release();
+			throw e;
+		}
+
+		return data;
+	}
+}
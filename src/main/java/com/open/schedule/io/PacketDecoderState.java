@@ -1,7 +0,0 @@
-package com.open.schedule.io;
-
-public enum PacketDecoderState {
-	STATE_READ_TYPE,
-	STATE_READ_LENGTH,
-	STATE_READ_CONTENT
-};
\ No newline at end of file
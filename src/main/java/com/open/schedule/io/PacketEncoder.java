@@ -0,0 +1,59 @@
+package com.open.schedule.io;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Packet;
+import com.open.schedule.io.packet.Writer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+public class PacketEncoder extends MessageToByteEncoder<ClientPacket> {
+	private static final int HEADER_LENGTH = Packet.PACKET_TYPE_LENGTH + Packet.PACKET_SIZE_LENGTH;
+
+	private final Writer.SizeCounter counter = new Writer.SizeCounter();
+	private final Writer writer = new Writer();
+
+	private int size;
+
+	public PacketEncoder() {
+		this(true);
+	}
+
+	public PacketEncoder(boolean preferDirect) {
+		super(ClientPacket.class, preferDirect);
+	}
+
+	@Override
+	protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ClientPacket packet, boolean preferDirect) throws Exception {
+		int features = Feature.negotiated(ctx.channel());
+
+		this.counter.setFeatures(features);
+		this.writer.setFeatures(features);
+
+		packet.write(this.counter.reset());
+		this.size = this.counter.getSize();
+
+		if (this.size > ClientPacket.MAX_PACKET_SIZE)
+			throw new TooLongFrameException("Packet " + packet.type + " length " + this.size + " exceeds " + ClientPacket.MAX_PACKET_SIZE);
+
+		int capacity = HEADER_LENGTH + this.size;
+
+		if (preferDirect)
+			return ctx.alloc().ioBuffer(capacity, capacity);
+		else
+			return ctx.alloc().heapBuffer(capacity, capacity);
+	}
+
+	@Override
+	protected void encode(ChannelHandlerContext ctx, ClientPacket packet, ByteBuf out) throws Exception {
+		out.writeByte(packet.type.ordinal());
+		out.writeShort(this.size);
+
+		packet.write(this.writer.wrap(out));
+
+		this.writer.wrap(null);
+	}
+}
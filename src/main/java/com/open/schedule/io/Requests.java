@@ -0,0 +1,135 @@
+package com.open.schedule.io;
+
+import com.open.schedule.io.packet.ServerPacket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.util.concurrent.EventExecutor;
+
+public class Requests {
+	public interface Callback<T extends ServerPacket> {
+		void completed(T response);
+
+		void failed(Throwable cause);
+	}
+
+	private final AtomicInteger nextId = new AtomicInteger(0);
+	private final HashMap<Integer, Request<?>> pending = new HashMap<>();
+
+	public <T extends ServerPacket> int register(EventExecutor loop, long timeout, Executor executor, Callback<T> callback) {
+		final int id = this.nextId.incrementAndGet();
+		Request<T> request = new Request<>(executor, callback);
+
+		synchronized (this.pending) {
+			this.pending.put(id, request);
+		}
+
+		if (timeout > 0) {
+			request.timeout = loop.schedule(new Runnable() {
+				@Override
+				public void run() {
+					Requests.this.fail(id, new TimeoutException("Request " + id + " timed out"));
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+		}
+
+		return id;
+	}
+
+	public boolean complete(int id, ServerPacket response) {
+		Request<?> request;
+
+		synchronized (this.pending) {
+			request = this.pending.remove(id);
+		}
+
+		if (request == null)
+			return false;
+
+		request.complete(response);
+		return true;
+	}
+
+	public void fail(int id, Throwable cause) {
+		Request<?> request;
+
+		synchronized (this.pending) {
+			request = this.pending.remove(id);
+		}
+
+		if (request != null)
+			request.fail(cause);
+	}
+
+	public void failAll(Throwable cause) {
+		ArrayList<Request<?>> requests;
+
+		synchronized (this.pending) {
+			requests = new ArrayList<>(this.pending.values());
+			this.pending.clear();
+		}
+
+		for (Request<?> request : requests) {
+			request.fail(cause);
+		}
+	}
+
+	public int size() {
+		synchronized (this.pending) {
+			return this.pending.size();
+		}
+	}
+
+	private static class Request<T extends ServerPacket> {
+		private final Executor executor;
+		private final Callback<T> callback;
+
+		private ScheduledFuture<?> timeout = null;
+
+		private Request(Executor executor, Callback<T> callback) {
+			this.executor = executor;
+			this.callback = callback;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void complete(ServerPacket response) {
+			final T result = (T) response;
+
+			this.cancelTimeout();
+			this.dispatch(new Runnable() {
+				@Override
+				public void run() {
+					Request.this.callback.completed(result);
+				}
+			});
+		}
+
+		private void fail(final Throwable cause) {
+			this.cancelTimeout();
+			this.dispatch(new Runnable() {
+				@Override
+				public void run() {
+					Request.this.callback.failed(cause);
+				}
+			});
+		}
+
+		private void cancelTimeout() {
+			if (this.timeout != null)
+				this.timeout.cancel(false);
+		}
+
+		private void dispatch(Runnable task) {
+			if (this.executor == null)
+				task.run();
+			else
+				this.executor.execute(task);
+		}
+	}
+}
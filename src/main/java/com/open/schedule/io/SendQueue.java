@@ -0,0 +1,268 @@
+package com.open.schedule.io;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Writer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+
+public class SendQueue {
+	private final int maxPackets;
+	private final int maxBytes;
+	private final int maxQueuedBytes;
+
+	private final Writer.SizeCounter counter = new Writer.SizeCounter();
+
+	private volatile ChannelHandlerContext context = null;
+	private volatile boolean batching = true;
+
+	private int pendingPackets = 0;
+	private int pendingBytes = 0;
+	private boolean flushScheduled = false;
+
+	// Пакеты, ожидающие, пока канал снова станет writable
+	private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+	private volatile int queuedBytes = 0;
+	private final ArrayList<Runnable> resumeListeners = new ArrayList<>();
+
+	private long stallStart = 0;
+
+	private volatile long flushes = 0;
+	private volatile long flushedPackets = 0;
+	private volatile int maxDepth = 0;
+	private volatile long stalls = 0;
+	private volatile long stallTime = 0;
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			SendQueue.this.flushScheduled = false;
+			SendQueue.this.flush();
+		}
+	};
+
+	public SendQueue(int maxPackets, int maxBytes, int maxQueuedBytes) {
+		this.maxPackets = maxPackets;
+		this.maxBytes = maxBytes;
+		this.maxQueuedBytes = maxQueuedBytes;
+	}
+
+	public void attach(ChannelHandlerContext context) {
+		this.context = context;
+		this.pendingPackets = 0;
+		this.pendingBytes = 0;
+		this.flushScheduled = false;
+
+		this.queue.clear();
+		this.queuedBytes = 0;
+		this.resumeListeners.clear();
+		this.stallStart = 0;
+	}
+
+	public void setBatching(boolean batching) {
+		this.batching = batching;
+	}
+
+	public boolean isBatching() {
+		return this.batching;
+	}
+
+	public void send(final ClientPacket packet) {
+		final ChannelHandlerContext context = this.context;
+		EventExecutor executor = context.executor();
+
+		if (!executor.inEventLoop()) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					SendQueue.this.write(context, packet);
+				}
+			});
+		} else {
+			this.write(context, packet);
+		}
+	}
+
+	public boolean isAccepting() {
+		ChannelHandlerContext context = this.context;
+
+		return (context != null && context.channel().isWritable() && this.queuedBytes < this.maxQueuedBytes);
+	}
+
+	public void whenAccepting(final Runnable listener) {
+		final ChannelHandlerContext context = this.context;
+
+		context.executor().execute(new Runnable() {
+			@Override
+			public void run() {
+				if (context != SendQueue.this.context)
+					return;
+
+				if (SendQueue.this.queue.isEmpty() && context.channel().isWritable())
+					listener.run();
+				else
+					SendQueue.this.resumeListeners.add(listener);
+			}
+		});
+	}
+
+	public void writabilityChanged() {
+		ChannelHandlerContext context = this.context;
+
+		if (context == null || !context.channel().isWritable())
+			return;
+
+		int written = 0;
+
+		while (!this.queue.isEmpty() && context.channel().isWritable()) {
+			Queued queued = this.queue.poll();
+			this.queuedBytes -= queued.size;
+
+			context.write(queued.packet);
+			written++;
+		}
+
+		if (written > 0) {
+			this.pendingPackets += written;
+			this.flush();
+		}
+
+		if (!this.queue.isEmpty())
+			return;
+
+		if (this.stallStart != 0) {
+			this.stallTime += System.nanoTime() - this.stallStart;
+			this.stallStart = 0;
+		}
+
+		if (!this.resumeListeners.isEmpty()) {
+			ArrayList<Runnable> listeners = new ArrayList<>(this.resumeListeners);
+			this.resumeListeners.clear();
+
+			for (Runnable listener : listeners) {
+				listener.run();
+			}
+		}
+	}
+
+	private void flush() {
+		if (this.pendingPackets == 0)
+			return;
+
+		this.flushes++;
+		this.flushedPackets += this.pendingPackets;
+
+		this.pendingPackets = 0;
+		this.pendingBytes = 0;
+
+		this.context.flush();
+	}
+
+	public long getFlushCount() {
+		return this.flushes;
+	}
+
+	public long getFlushedPackets() {
+		return this.flushedPackets;
+	}
+
+	public double getPacketsPerFlush() {
+		long flushes = this.flushes;
+		return (flushes == 0 ? 0 : (double) this.flushedPackets / flushes);
+	}
+
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	public int getQueuedBytes() {
+		return this.queuedBytes;
+	}
+
+	public int getMaxQueueDepth() {
+		return this.maxDepth;
+	}
+
+	public long getStallCount() {
+		return this.stalls;
+	}
+
+	public long getStallTimeMillis() {
+		long stallTime = this.stallTime;
+		long stallStart = this.stallStart;
+
+		if (stallStart != 0)
+			stallTime += System.nanoTime() - stallStart;
+
+		return stallTime / 1000000;
+	}
+
+	private void write(ChannelHandlerContext context, ClientPacket packet) {
+		if (context != this.context)
+			return;
+
+		// Размер считается с согласованными возможностями, как в PacketEncoder
+		this.counter.setFeatures(Feature.negotiated(context.channel()));
+		packet.write(this.counter.reset());
+		int size = this.counter.getSize();
+
+		if (!this.queue.isEmpty() || !context.channel().isWritable()) {
+			this.enqueue(context, packet, size);
+			return;
+		}
+
+		if (!this.batching) {
+			this.flushes++;
+			this.flushedPackets++;
+
+			context.writeAndFlush(packet);
+			return;
+		}
+
+		context.write(packet);
+
+		this.pendingPackets++;
+		this.pendingBytes += size;
+
+		// Если канал перестал быть writable, незачем ждать: буфер должен уходить в сеть
+		if (this.pendingPackets >= this.maxPackets || this.pendingBytes >= this.maxBytes || !context.channel().isWritable()) {
+			this.flush();
+		} else if (!this.flushScheduled) {
+			this.flushScheduled = true;
+			context.executor().execute(this.flushTask);
+		}
+	}
+
+	private void enqueue(ChannelHandlerContext context, ClientPacket packet, int size) {
+		this.flush();
+
+		if (this.stallStart == 0) {
+			this.stallStart = System.nanoTime();
+			this.stalls++;
+		}
+
+		this.queue.add(new Queued(packet, size));
+		this.queuedBytes += size;
+
+		if (this.queue.size() > this.maxDepth)
+			this.maxDepth = this.queue.size();
+
+		// Канал мог стать writable до того, как пакет попал в очередь
+		if (context.channel().isWritable())
+			this.writabilityChanged();
+	}
+
+	private static class Queued {
+		final ClientPacket packet;
+		final int size;
+
+		Queued(ClientPacket packet, int size) {
+			this.packet = packet;
+			this.size = size;
+		}
+	}
+}
@@ -2,7 +2,10 @@ package com.open.schedule.io;
 
 import android.util.Log;
 
-import com.open.schedule.app.ScheduleApplication;
+import com.open.schedule.config.Config;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
@@ -10,71 +13,260 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.ScheduledFuture;
 
 public class ServerConnection {
 	private final static String LOG_TAG = ServerConnection.class.getName();
 
-	final private EventLoopGroup workerGroup = new NioEventLoopGroup();
+	public final static String IDLE = "idle";
+	public final static String DECODER = "decoder";
+	public final static String ENCODER = "encoder";
+	public final static String COMPRESSOR = "compressor";
+	public final static String CLIENT = "client";
+
+	public interface Listener {
+		void connected();
+
+		void disconnected();
+	}
+
+	final private EventLoopGroup workerGroup = new NioEventLoopGroup(1);
 	final private Bootstrap bootstrap = new Bootstrap();
+	// Все переходы состояния выполняются в этом цикле, поэтому блокировки не нужны
+	final private EventLoop loop = this.workerGroup.next();
+	final private Random random = new Random();
+
+	private final String host;
+	private final int port;
+	private final Client client;
+	private final Listener listener;
+
+	private volatile Channel channel = null;
+	private ChannelFuture connecting = null;
+	private ScheduledFuture<?> retry = null;
+	private boolean running = false;
+
+	private int attempts = 0;
+	private long downSince = 0;
+	private long connectedAt = 0;
+	private boolean wasConnected = false;
 
-	private String host;
-	private int port;
+	private volatile long reconnects = 0;
+	private volatile long reconnectTime = 0;
+	private volatile long lastReconnectTime = 0;
 
-	private Channel channel = null;
+	private final Runnable connectTask = new Runnable() {
+		@Override
+		public void run() {
+			ServerConnection.this.retry = null;
+			ServerConnection.this.connect();
+		}
+	};
+
+	private final ChannelFutureListener connectListener = new ChannelFutureListener() {
+		@Override
+		public void operationComplete(ChannelFuture future) throws Exception {
+			ServerConnection.this.connectComplete(future);
+		}
+	};
 
-	private final ChannelFutureListener channelCloseListener;
+	private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+		@Override
+		public void operationComplete(ChannelFuture future) throws Exception {
+			ServerConnection.this.closed(future.channel());
+		}
+	};
 
-	public ServerConnection(final ScheduleApplication application, final Client client, final String host, final int port) {
+	public ServerConnection(final Client client, final String host, final int port, final Listener listener) {
 		this.host = host;
 		this.port = port;
+		this.client = client;
+		this.listener = listener;
 
 		this.bootstrap
-			.group(workerGroup)
+			.group(this.workerGroup)
 			.channel(NioSocketChannel.class)
 			.option(ChannelOption.SO_KEEPALIVE, true)
+			.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Config.CONNECT_TIMEOUT)
+			.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, Config.WRITE_BUFFER_LOW_WATER_MARK)
+			.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, Config.WRITE_BUFFER_HIGH_WATER_MARK)
 			.handler(new ChannelInitializer<SocketChannel>() {
 				@Override
 				public void initChannel(SocketChannel channel) throws Exception {
-					channel.pipeline().addLast(new PacketDecoder(), client);
+					channel.pipeline()
+						.addLast(IDLE, new IdleStateHandler(Config.HEARTBEAT_TIMEOUT, 0, Config.HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS))
+						.addLast(DECODER, new PacketDecoder())
+						.addLast(ENCODER, new PacketEncoder())
+						.addLast(CLIENT, client);
 				}
 			});
+	}
 
-		this.channelCloseListener = new ChannelFutureListener() {
+	public void start() {
+		this.loop.execute(new Runnable() {
 			@Override
-			public void operationComplete(ChannelFuture future) throws Exception {
-				client.logout();
+			public void run() {
+				ServerConnection.this.running = true;
+				ServerConnection.this.attempts = 0;
+
+				if (ServerConnection.this.retry != null) {
+					ServerConnection.this.retry.cancel(false);
+					ServerConnection.this.retry = null;
+				}
 
-				application.new ConnectionAsyncTask().execute();
+				ServerConnection.this.connect();
 			}
-		};
+		});
+	}
+
+	// Пользователь вернулся в приложение: не ждём окончания задержки, а подключаемся сразу
+	public void reconnect() {
+		this.loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!ServerConnection.this.running || ServerConnection.this.retry == null)
+					return;
+
+				ServerConnection.this.retry.cancel(false);
+				ServerConnection.this.retry = null;
+				ServerConnection.this.attempts = 0;
+
+				ServerConnection.this.connect();
+			}
+		});
+	}
+
+	public void stop() {
+		this.loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				ServerConnection.this.running = false;
+
+				if (ServerConnection.this.retry != null) {
+					ServerConnection.this.retry.cancel(false);
+					ServerConnection.this.retry = null;
+				}
+
+				if (ServerConnection.this.connecting != null)
+					ServerConnection.this.connecting.cancel(false);
+
+				Channel channel = ServerConnection.this.channel;
+				if (channel != null)
+					channel.close();
+			}
+		});
+	}
+
+	public void shutdown() {
+		this.stop();
+
+		this.workerGroup.shutdownGracefully();
+	}
+
+	public boolean isConnected() {
+		Channel channel = this.channel;
+		return (channel != null && channel.isActive());
+	}
+
+	public long getReconnectCount() {
+		return this.reconnects;
+	}
+
+	public long getLastReconnectMillis() {
+		return this.lastReconnectTime;
 	}
 
-	public void tryConnect() {
-		try {
-			ChannelFuture future = bootstrap.connect(this.host, this.port).sync();
-			Channel channel = future.channel();
-			this.channel = channel;
+	public double getAverageReconnectMillis() {
+		long reconnects = this.reconnects;
+		return (reconnects == 0 ? 0 : (double) this.reconnectTime / reconnects);
+	}
+
+	private void connect() {
+		if (!this.running || this.connecting != null || this.isConnected())
+			return;
+
+		if (this.downSince == 0)
+			this.downSince = System.nanoTime();
+
+		this.attempts++;
+		this.connecting = this.bootstrap.connect(this.host, this.port);
+		this.connecting.addListener(this.connectListener);
+	}
+
+	private void connectComplete(ChannelFuture future) {
+		this.connecting = null;
 
-			channel.closeFuture().addListener(this.channelCloseListener);
-		} catch (Exception e) {
-			Log.w("ServerConnector", "Exception on connection", e);
+		if (!future.isSuccess()) {
+			Log.w(LOG_TAG, "Exception on connection, attempt " + this.attempts, future.cause());
 
-			this.channel = null;
+			this.scheduleRetry();
+			return;
 		}
+
+		Channel channel = future.channel();
+
+		if (!this.running) {
+			channel.close();
+			return;
+		}
+
+		this.channel = channel;
+		channel.closeFuture().addListener(this.closeListener);
+
+		if (this.wasConnected) {
+			long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.downSince);
+
+			this.lastReconnectTime = latency;
+			this.reconnectTime += latency;
+			this.reconnects++;
+		}
+
+		this.wasConnected = true;
+		this.connectedAt = System.nanoTime();
+		this.downSince = 0;
+
+		this.listener.connected();
 	}
 
-	public void disconnect() {
-		workerGroup.shutdownGracefully();
+	private void closed(Channel channel) {
+		if (channel != this.channel)
+			return;
 
-		this.channel.close();
 		this.channel = null;
+		this.client.logout();
+		this.listener.disconnected();
+
+		this.downSince = System.nanoTime();
+
+		// После разрыва стабильного соединения первая попытка выполняется сразу,
+		// а если сервер закрывает соединение сразу после подключения, действует задержка
+		if (TimeUnit.NANOSECONDS.toMillis(this.downSince - this.connectedAt) >= Config.RECONNECT_STABLE_TIME) {
+			this.attempts = 0;
+			this.connect();
+		} else {
+			this.scheduleRetry();
+		}
 	}
 
-	public boolean isConnected() {
-		return (this.channel != null && this.channel.isActive());
+	private void scheduleRetry() {
+		if (!this.running)
+			return;
+
+		// Попытки не ограничены: после достижения RECONNECT_MAX_DELAY подключение повторяется с этим интервалом
+		this.retry = this.loop.schedule(this.connectTask, this.nextDelay(), TimeUnit.MILLISECONDS);
+	}
+
+	private long nextDelay() {
+		int shift = Math.min(this.attempts - 1, 16);
+		long delay = Math.min(Config.RECONNECT_MAX_DELAY, Config.RECONNECT_MIN_DELAY << shift);
+
+		// Половина задержки фиксирована, вторая половина случайна, чтобы клиенты не переподключались одновременно
+		return delay / 2 + (long) (this.random.nextDouble() * (delay / 2));
 	}
 }
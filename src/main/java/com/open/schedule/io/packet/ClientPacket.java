@@ -1,32 +1,45 @@
 package com.open.schedule.io.packet;
 
-public abstract class ClientPacket extends Writer implements Packet {
+import java.util.ArrayList;
+
+public abstract class ClientPacket implements Packet, Writable {
 	public enum Type {
 		REGISTER,
 		LOGIN,
 		CREATE_TABLE,
 		CREATE_TASK,
-		NOT_USED_TABLE_CHANGE,
-		NOT_USED_TASK_CHANGE,
+		TABLE_CHANGE,
+		TASK_CHANGE,
 		NOT_USED_PERMISSION,
-		NOT_USED_COMMENTARY
+		NOT_USED_COMMENTARY,
+		CREATE_TABLE_GROUP,
+		CREATE_TASK_GROUP,
+		SYNC,
+		PING,
+		RESUME
 	}
 
-	public class Group extends Writer implements Writable {
-		private int number = 0;
+	public static class Group implements Writable {
+		private final ArrayList<Writable> records = new ArrayList<>();
 
-		public Group() {
-			super(ClientPacket.MAX_PACKET_SIZE);
+		public void add(Writable record) {
+			this.records.add(record);
 		}
 
-		public void next() {
-			this.number++;
+		public int size() {
+			return this.records.size();
 		}
 
 		@Override
 		public void write(Writer writer) {
-			writer.write(this.number);
-			writer.getBuffer().put(this.getBuffer());
+			writer.write(this.records.size());
+
+			for (int i = 0; i < this.records.size(); ++i) {
+				Writable record = this.records.get(i);
+
+				writer.write(writer.sizeOf(record));
+				writer.write(record);
+			}
 		}
 	}
 
@@ -35,7 +48,13 @@ public abstract class ClientPacket extends Writer implements Packet {
 	public final Type type;
 
 	public ClientPacket(Type type) {
-		super(MAX_PACKET_SIZE);
 		this.type = type;
 	}
+
+	public int getSize(int features) {
+		Writer.SizeCounter counter = new Writer.SizeCounter();
+		counter.setFeatures(features);
+		this.write(counter);
+		return counter.getSize();
+	}
 }
@@ -0,0 +1,24 @@
+package com.open.schedule.io.packet;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+public enum Feature {
+	BINARY_TIME,
+	COMPRESSION,
+	COMPACT_NUMBERS,
+	SESSION_RESUME;
+
+	public static final AttributeKey<Integer> ATTRIBUTE = AttributeKey.valueOf("features");
+
+	public final int mask = 1 << this.ordinal();
+
+	public boolean in(int features) {
+		return (features & this.mask) != 0;
+	}
+
+	public static int negotiated(Channel channel) {
+		Integer features = channel.attr(ATTRIBUTE).get();
+		return (features == null ? 0 : features);
+	}
+}
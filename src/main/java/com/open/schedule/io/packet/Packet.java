@@ -3,4 +3,5 @@ package com.open.schedule.io.packet;
 public interface Packet {
 	public static final int PACKET_SIZE_LENGTH = Short.SIZE / 8;
 	public static final int PACKET_TYPE_LENGTH = Byte.SIZE / 8;
+	public static final int PACKET_COMPRESSED_FLAG = 0x80;
 }
@@ -0,0 +1,98 @@
+package com.open.schedule.io.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.CharsetUtil;
+
+public class Reader {
+	private static final int MAX_VARINT_LENGTH = 10;
+
+	private final ByteBuf buffer;
+	private final int features;
+	private final boolean compact;
+
+	private long baseTime = 0;
+	private boolean hasBaseTime = false;
+
+	public Reader(ByteBuf buffer, int features) {
+		this.buffer = buffer;
+		this.features = features;
+		this.compact = Feature.COMPACT_NUMBERS.in(features);
+	}
+
+	public int getFeatures() {
+		return this.features;
+	}
+
+	public boolean has(Feature feature) {
+		return feature.in(this.features);
+	}
+
+	public boolean isReadable() {
+		return this.buffer.isReadable();
+	}
+
+	public int readableBytes() {
+		return this.buffer.readableBytes();
+	}
+
+	public byte readByte() {
+		return this.buffer.readByte();
+	}
+
+	public short readShort() {
+		return (this.compact ? (short) zigZag(this.readVarint()) : this.buffer.readShort());
+	}
+
+	public int readInt() {
+		return (this.compact ? (int) zigZag(this.readVarint()) : this.buffer.readInt());
+	}
+
+	public long readLong() {
+		return (this.compact ? zigZag(this.readVarint()) : this.buffer.readLong());
+	}
+
+	public long readTime() {
+		if (!this.compact)
+			return this.buffer.readLong();
+
+		long value = zigZag(this.readVarint());
+
+		if (!this.hasBaseTime) {
+			this.baseTime = value;
+			this.hasBaseTime = true;
+			return value;
+		}
+
+		return this.baseTime + value;
+	}
+
+	public String readString() {
+		int length = (this.compact ? (int) this.readVarint() : this.buffer.readUnsignedShort());
+
+		String result = this.buffer.toString(this.buffer.readerIndex(), length, CharsetUtil.UTF_8);
+
+		this.buffer.skipBytes(length);
+
+		return result;
+	}
+
+	private long readVarint() {
+		long value = 0;
+
+		for (int i = 0; i < MAX_VARINT_LENGTH; ++i) {
+			byte current = this.buffer.readByte();
+
+			value |= (long) (current & 0x7F) << (7 * i);
+
+			if ((current & 0x80) == 0)
+				return value;
+		}
+
+		throw new CorruptedFrameException("Malformed varint");
+	}
+
+	private static long zigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -1,60 +1,78 @@
 package com.open.schedule.io.packet;
 
+import com.open.schedule.io.packet.server.GlobalTableIdPacket;
+import com.open.schedule.io.packet.server.GlobalTaskIdPacket;
 import com.open.schedule.io.packet.server.LoggedPacket;
+import com.open.schedule.io.packet.server.PongPacket;
+import com.open.schedule.io.packet.server.TableChangedPacket;
+import com.open.schedule.io.packet.server.TableGroupPacket;
 import com.open.schedule.io.packet.server.TablePacket;
+import com.open.schedule.io.packet.server.TaskChangedPacket;
+import com.open.schedule.io.packet.server.TaskGroupPacket;
 import com.open.schedule.io.packet.server.TaskPacket;
 import com.open.schedule.io.packet.server.RegisteredPacket;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
 public abstract class ServerPacket implements Packet {
 	public enum Type {
-		REGISTERED(false),
-		LOGGED(false),
-		NOT_USED_GLOBAL_TABLE_ID,        // Локальная база данных клиента занесена в глобальную базу даных
-		NOT_USED_GLOBAL_TASK_ID,         // Локальное задание клиента занесено в глобальную базу данных
-		TABLE,
-		TASK,
+		REGISTERED(false, RegisteredPacket.FACTORY),
+		LOGGED(false, LoggedPacket.FACTORY),
+		GLOBAL_TABLE_ID(GlobalTableIdPacket.FACTORY),        // Локальная база данных клиента занесена в глобальную базу даных
+		GLOBAL_TASK_ID(GlobalTaskIdPacket.FACTORY),          // Локальное задание клиента занесено в глобальную базу данных
+		TABLE(TablePacket.FACTORY),
+		TASK(TaskPacket.FACTORY),
 		NOT_USED_PERMISSION,
 		NOT_USED_COMMENTARY,
-		NOT_USED_USER;
+		NOT_USED_USER,
+		TABLE_GROUP(TableGroupPacket.FACTORY),
+		TASK_GROUP(TaskGroupPacket.FACTORY),
+		TABLE_CHANGED(TableChangedPacket.FACTORY),
+		TASK_CHANGED(TaskChangedPacket.FACTORY),
+		PONG(false, PongPacket.FACTORY);                     // Проверяется отдельно: может прийти до и после входа
+
+		private static final Type[] TYPES = Type.values();
 
 		public final boolean needLogged;
+		private final Factory factory;
 
 		Type() {
-			this(true);
+			this(true, null);
 		}
 
-		Type(boolean needLogged) {
+		Type(Factory factory) {
+			this(true, factory);
+		}
+
+		Type(boolean needLogged, Factory factory) {
 			this.needLogged = needLogged;
+			this.factory = factory;
+		}
+
+		public boolean isSupported() {
+			return this.factory != null;
+		}
+
+		public static Type get(int id) {
+			return (id < TYPES.length ? TYPES[id] : null);
 		}
 	}
 
+	public interface Factory {
+		ServerPacket create(Reader reader);
+	}
+
 	private final Type type;
-	private final byte[] buffer;
-	private int offset;
+	private final Reader reader;
 
-	protected ServerPacket(Type type, byte[] data) {
+	protected ServerPacket(Type type, Reader reader) {
 		this.type = type;
-		this.buffer = data;
-		this.offset = 0;
+		this.reader = reader;
 	}
 
-	public static ServerPacket get(Type type, byte[] data) {
-		ServerPacket packet = null;
-
-		switch (type) {
-			case REGISTERED:
-				packet = new RegisteredPacket(data);
-				break;
-			case LOGGED:
-				packet = new LoggedPacket(data);
-				break;
-			case TABLE:
-				packet = new TablePacket(data);
-				break;
-			case TASK:
-				packet = new TaskPacket(data);
-				break;
-		}
+	public static ServerPacket get(Type type, ByteBuf data, int features) {
+		ServerPacket packet = type.factory.create(new Reader(data, features));
 
 		packet.init();
 		return packet;
@@ -66,44 +84,49 @@ public abstract class ServerPacket implements Packet {
 
 	public abstract void init();
 
-	protected Byte getByte() {
-		return new Byte(buffer[this.offset++]);
+	protected Reader getReader() {
+		return this.reader;
 	}
 
-	protected Short getShort() {
-		Short result = new Short((short) 0);
+	protected boolean has(Feature feature) {
+		return this.reader.has(feature);
+	}
 
-		for (int i = 0; i < Short.SIZE / 8; i++)
-			result = (short) ((result << 8) | buffer[this.offset++]);
+	protected byte getByte() {
+		return this.reader.readByte();
+	}
 
-		return result;
+	protected short getShort() {
+		return this.reader.readShort();
 	}
 
-	protected Integer getInt() {
-		Integer result = 0;
+	protected int getInt() {
+		return this.reader.readInt();
+	}
 
-		for (int i = 0; i < Integer.SIZE / 8; i++)
-			result = (result << 8) | buffer[this.offset++];
+	protected long getLong() {
+		return this.reader.readLong();
+	}
 
-		return result;
+	protected long getTime() {
+		return this.reader.readTime();
 	}
 
-	protected Long getLong() {
-		Long result = Integer.valueOf(0).longValue();
+	// Число записей приходит из сети: больше, чем может поместиться в остатке пакета, быть не может
+	protected int getCount(int minRecordSize) {
+		int count = this.getInt();
 
-		for (int i = 0; i < Long.SIZE / 8; i++)
-			result = (result << 8) | this.buffer[this.offset++];
+		if (count < 0 || count > this.reader.readableBytes() / minRecordSize)
+			throw new CorruptedFrameException("Invalid record count " + count + " for " + this.reader.readableBytes() + " bytes");
 
-		return result;
+		return count;
 	}
 
-	protected String getString() {
-		short length = this.getShort();
-
-		String result = new String(this.buffer, this.offset, length);
-
-		this.offset += length;
+	protected boolean hasFields() {
+		return this.reader.isReadable();
+	}
 
-		return result;
+	protected String getString() {
+		return this.reader.readString();
 	}
 }
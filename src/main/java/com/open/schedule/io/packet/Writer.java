@@ -1,63 +1,229 @@
 package com.open.schedule.io.packet;
 
-import java.nio.ByteBuffer;
+import io.netty.buffer.ByteBuf;
 
 public class Writer {
-	private final ByteBuffer buffer;
+	private ByteBuf buffer;
+	private int features = 0;
+	private boolean compact = false;
 
-	protected Writer(int size) {
-		this.buffer =  ByteBuffer.allocate(size);
+	private long baseTime = 0;
+	private boolean hasBaseTime = false;
+
+	public Writer() {}
+
+	public Writer(ByteBuf buffer) {
+		this.buffer = buffer;
+	}
+
+	public Writer wrap(ByteBuf buffer) {
+		this.buffer = buffer;
+		this.hasBaseTime = false;
+		return this;
 	}
 
-	public short getSize() {
-		return (short) this.buffer.position();
+	public Writer setFeatures(int features) {
+		this.features = features;
+		this.compact = Feature.COMPACT_NUMBERS.in(features);
+		return this;
 	}
 
-	public ByteBuffer getBuffer() {
-		return this.buffer;
+	public boolean has(Feature feature) {
+		return feature.in(this.features);
 	}
 
-	protected void write(byte type, Object data) {
+	public void write(byte type, Object data) {
 		if (data == null)
 			return;
 
 		this.write(type);
 
 		if (data instanceof Byte) {
-			this.write((Byte) data);
+			this.write((byte) (Byte) data);
 		} else if (data instanceof Short) {
-			this.write((Short) data);
+			this.write((short) (Short) data);
 		} else if (data instanceof Integer) {
-			this.write((Integer) data);
+			this.write((int) (Integer) data);
 		} else if (data instanceof Long) {
-			this.write((Long) data);
+			this.write((long) (Long) data);
 		} else if (data instanceof String) {
 			this.write((String) data);
 		}
 	}
 
-	protected void write(Byte value) {
-		this.buffer.put(value);
+	public void write(byte value) {
+		this.putByte(value);
 	}
 
-	protected void write(Short value) {
-		this.buffer.putShort(value);
+	public void write(short value) {
+		if (this.compact)
+			this.writeVarint(zigZag(value));
+		else
+			this.putShort(value);
 	}
 
-	protected void write(Integer value) {
-		this.buffer.putInt(value);
+	public void write(int value) {
+		if (this.compact)
+			this.writeVarint(zigZag(value));
+		else
+			this.putInt(value);
 	}
 
-	protected void write(Long value) {
-		this.buffer.putLong(value);
+	public void write(long value) {
+		if (this.compact)
+			this.writeVarint(zigZag(value));
+		else
+			this.putLong(value);
+	}
+
+	public void writeTime(long time) {
+		if (!this.compact) {
+			this.putLong(time);
+		} else if (!this.hasBaseTime) {
+			this.baseTime = time;
+			this.hasBaseTime = true;
+			this.writeVarint(zigZag(time));
+		} else {
+			this.writeVarint(zigZag(time - this.baseTime));
+		}
 	}
 
-	protected void write(String value) {
-		this.buffer.putShort((short) (Byte.SIZE * value.length()));
-		this.buffer.put(value.getBytes());
+	public void write(String value) {
+		int length = utf8Length(value);
+
+		if (this.compact)
+			this.writeVarint(length);
+		else
+			this.putShort((short) length);
+
+		this.putUtf8(value, length);
 	}
 
-	protected void write(Writable writable) {
+	public void write(Writable writable) {
 		writable.write(this);
 	}
+
+	public int sizeOf(Writable writable) {
+		SizeCounter counter = new SizeCounter();
+		counter.setFeatures(this.features);
+
+		Writer state = counter;
+		state.baseTime = this.baseTime;
+		state.hasBaseTime = this.hasBaseTime;
+
+		writable.write(counter);
+
+		return counter.getSize();
+	}
+
+	protected void putByte(int value) {
+		this.buffer.writeByte(value);
+	}
+
+	protected void putShort(short value) {
+		this.buffer.writeShort(value);
+	}
+
+	protected void putInt(int value) {
+		this.buffer.writeInt(value);
+	}
+
+	protected void putLong(long value) {
+		this.buffer.writeLong(value);
+	}
+
+	protected void putUtf8(String value, int length) {
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+
+			if (c < 0x80) {
+				this.buffer.writeByte(c);
+			} else if (c < 0x800) {
+				this.buffer.writeByte(0xC0 | (c >> 6));
+				this.buffer.writeByte(0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+
+				this.buffer.writeByte(0xF0 | (codePoint >> 18));
+				this.buffer.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+				this.buffer.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+				this.buffer.writeByte(0x80 | (codePoint & 0x3F));
+			} else {
+				this.buffer.writeByte(0xE0 | (c >> 12));
+				this.buffer.writeByte(0x80 | ((c >> 6) & 0x3F));
+				this.buffer.writeByte(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private void writeVarint(long value) {
+		while ((value & ~0x7FL) != 0) {
+			this.putByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		this.putByte((int) value);
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	protected static int utf8Length(String value) {
+		int length = value.length();
+
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+
+			if (c >= 0x800) {
+				length += 2;
+
+				if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1)))
+					++i;
+			} else if (c >= 0x80) {
+				length += 1;
+			}
+		}
+
+		return length;
+	}
+
+	public static class SizeCounter extends Writer {
+		private int size = 0;
+
+		public SizeCounter reset() {
+			this.wrap(null);
+			this.size = 0;
+			return this;
+		}
+
+		public int getSize() {
+			return this.size;
+		}
+
+		@Override
+		protected void putByte(int value) {
+			this.size += Byte.SIZE / 8;
+		}
+
+		@Override
+		protected void putShort(short value) {
+			this.size += Short.SIZE / 8;
+		}
+
+		@Override
+		protected void putInt(int value) {
+			this.size += Integer.SIZE / 8;
+		}
+
+		@Override
+		protected void putLong(long value) {
+			this.size += Long.SIZE / 8;
+		}
+
+		@Override
+		protected void putUtf8(String value, int length) {
+			this.size += length;
+		}
+	}
 }
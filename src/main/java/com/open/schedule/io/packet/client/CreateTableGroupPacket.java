@@ -0,0 +1,9 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+
+public class CreateTableGroupPacket extends GroupPacket<CreateTablePacket> {
+	public CreateTableGroupPacket(int features) {
+		super(ClientPacket.Type.CREATE_TABLE_GROUP, features);
+	}
+}
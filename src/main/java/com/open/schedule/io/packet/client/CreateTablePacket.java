@@ -1,19 +1,37 @@
 package com.open.schedule.io.packet.client;
 
 import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
 
 public class CreateTablePacket extends ClientPacket {
-	private enum Fields {
+	public enum Fields {
 		NAME,
 		DESCRIPTION
 	}
 
-	public CreateTablePacket(Integer tableId, Long time, String name, String description) {
-		super(ClientPacket.Type.CREATE_TABLE);
-		this.write(tableId);
-		this.write(time);
+	private final int tableId;
+	private final long time;
+	private final String name;
+	private final String description;
 
-		this.write((byte) Fields.NAME.ordinal(), name);
-		this.write((byte) Fields.DESCRIPTION.ordinal(), description);
+	public CreateTablePacket(int tableId, long time, String name, String description) {
+		this(ClientPacket.Type.CREATE_TABLE, tableId, time, name, description);
+	}
+
+	protected CreateTablePacket(Type type, int tableId, long time, String name, String description) {
+		super(type);
+		this.tableId = tableId;
+		this.time = time;
+		this.name = name;
+		this.description = description;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.tableId);
+		writer.writeTime(this.time);
+
+		writer.write((byte) Fields.NAME.ordinal(), this.name);
+		writer.write((byte) Fields.DESCRIPTION.ordinal(), this.description);
 	}
 }
@@ -0,0 +1,9 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+
+public class CreateTaskGroupPacket extends GroupPacket<CreateTaskPacket> {
+	public CreateTaskGroupPacket(int features) {
+		super(ClientPacket.Type.CREATE_TASK_GROUP, features);
+	}
+}
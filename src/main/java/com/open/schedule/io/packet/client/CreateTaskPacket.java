@@ -2,12 +2,14 @@ package com.open.schedule.io.packet.client;
 
 import com.open.schedule.account.tables.TimeFormat;
 import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Writer;
 import com.open.schedule.utility.Utility;
 
 import java.util.Date;
 
 public class CreateTaskPacket extends ClientPacket {
-	private enum Fields {
+	public enum Fields {
 		NAME,
 		DESCRIPTION,
 		START_DATE,
@@ -17,19 +19,76 @@ public class CreateTaskPacket extends ClientPacket {
 		PERIOD
 	}
 
+	private final int taskId;
+	private final int tableId;
+	private final long time;
+	private final String name;
+	private final String description;
+	private final Date startDate;
+	private final Date endDate;
+	private final Date startTime;
+	private final Date endTime;
+	private final Short period;
+
+	private String[] formatted = null;
+
 	public CreateTaskPacket(int taskId, int tableId, long time, String name, String description,
 							Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
-		super(ClientPacket.Type.CREATE_TASK);
-		this.write(taskId);
-		this.write(tableId);
-		this.write(time);
-
-		this.write((byte) Fields.NAME.ordinal(), name);
-		this.write((byte) Fields.DESCRIPTION.ordinal(), description);
-		this.write((byte) Fields.START_DATE.ordinal(), Utility.parseToString(startDate, TimeFormat.DATE_FORMATTER));
-		this.write((byte) Fields.END_DATE.ordinal(), Utility.parseToString(endDate, TimeFormat.DATE_FORMATTER));
-		this.write((byte) Fields.START_TIME.ordinal(), Utility.parseToString(startTime, TimeFormat.DATE_FORMATTER));
-		this.write((byte) Fields.END_TIME.ordinal(), Utility.parseToString(endTime, TimeFormat.DATE_FORMATTER));
-		this.write((byte) Fields.PERIOD.ordinal(), period);
+		this(ClientPacket.Type.CREATE_TASK, taskId, tableId, time, name, description, startDate, endDate, startTime, endTime, period);
+	}
+
+	protected CreateTaskPacket(Type type, int taskId, int tableId, long time, String name, String description,
+							   Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
+		super(type);
+		this.taskId = taskId;
+		this.tableId = tableId;
+		this.time = time;
+
+		this.name = name;
+		this.description = description;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.period = period;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.taskId);
+		writer.write(this.tableId);
+		writer.writeTime(this.time);
+
+		writer.write((byte) Fields.NAME.ordinal(), this.name);
+		writer.write((byte) Fields.DESCRIPTION.ordinal(), this.description);
+
+		if (writer.has(Feature.BINARY_TIME)) {
+			writer.write((byte) Fields.START_DATE.ordinal(), Utility.toEpochDay(this.startDate));
+			writer.write((byte) Fields.END_DATE.ordinal(), Utility.toEpochDay(this.endDate));
+			writer.write((byte) Fields.START_TIME.ordinal(), Utility.toMinuteOfDay(this.startTime));
+			writer.write((byte) Fields.END_TIME.ordinal(), Utility.toMinuteOfDay(this.endTime));
+		} else {
+			String[] formatted = this.format();
+
+			writer.write((byte) Fields.START_DATE.ordinal(), formatted[0]);
+			writer.write((byte) Fields.END_DATE.ordinal(), formatted[1]);
+			writer.write((byte) Fields.START_TIME.ordinal(), formatted[2]);
+			writer.write((byte) Fields.END_TIME.ordinal(), formatted[3]);
+		}
+
+		writer.write((byte) Fields.PERIOD.ordinal(), this.period);
+	}
+
+	private String[] format() {
+		if (this.formatted == null) {
+			this.formatted = new String[] {
+				Utility.parseToString(this.startDate, TimeFormat.DATE_FORMATTER),
+				Utility.parseToString(this.endDate, TimeFormat.DATE_FORMATTER),
+				Utility.parseToString(this.startTime, TimeFormat.TIME_FORMATTER),
+				Utility.parseToString(this.endTime, TimeFormat.TIME_FORMATTER)
+			};
+		}
+
+		return this.formatted;
 	}
 }
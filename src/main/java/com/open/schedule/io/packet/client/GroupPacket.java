@@ -0,0 +1,46 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
+
+public abstract class GroupPacket<T extends ClientPacket> extends ClientPacket {
+	// Число записей пишется в начале группы; в компактном режиме varint занимает до 5 байт
+	private static final int COUNT_MAX_SIZE = Integer.SIZE / 8 + 1;
+
+	private final Group records = new Group();
+	// Записи проходят через счётчик в том же порядке, что и через Writer, поэтому совпадают и дельты времени
+	private final Writer.SizeCounter counter = new Writer.SizeCounter();
+	private boolean full = false;
+
+	protected GroupPacket(Type type, int features) {
+		super(type);
+
+		this.counter.setFeatures(features);
+	}
+
+	public boolean add(T record) {
+		if (this.full)
+			return false;
+
+		this.counter.write(this.counter.sizeOf(record));
+		this.counter.write(record);
+
+		if (this.records.size() > 0 && COUNT_MAX_SIZE + this.counter.getSize() > ClientPacket.MAX_PACKET_SIZE) {
+			this.full = true;
+			return false;
+		}
+
+		this.records.add(record);
+
+		return true;
+	}
+
+	public int count() {
+		return this.records.size();
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.records);
+	}
+}
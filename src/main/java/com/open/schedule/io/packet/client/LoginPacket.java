@@ -1,12 +1,30 @@
 package com.open.schedule.io.packet.client;
 
 import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
 
 public class LoginPacket extends ClientPacket {
-	public LoginPacket(String name, String password, long lastSyncTime) {
+	private final int requestId;
+	private final String name;
+	private final String password;
+	private final long lastSyncTime;
+	private final int features;
+
+	public LoginPacket(int requestId, String name, String password, long lastSyncTime, int features) {
 		super(ClientPacket.Type.LOGIN);
-		this.write(name);
-		this.write(password);
-		this.write(lastSyncTime);
+		this.requestId = requestId;
+		this.name = name;
+		this.password = password;
+		this.lastSyncTime = lastSyncTime;
+		this.features = features;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.requestId);
+		writer.write(this.name);
+		writer.write(this.password);
+		writer.writeTime(this.lastSyncTime);
+		writer.write((byte) this.features);
 	}
 }
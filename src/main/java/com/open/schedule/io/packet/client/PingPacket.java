@@ -0,0 +1,18 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
+
+public class PingPacket extends ClientPacket {
+	private final long time;
+
+	public PingPacket(long time) {
+		super(ClientPacket.Type.PING);
+		this.time = time;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.time);
+	}
+}
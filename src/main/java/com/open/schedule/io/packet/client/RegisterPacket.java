@@ -1,11 +1,24 @@
 package com.open.schedule.io.packet.client;
 
 import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
 
 public class RegisterPacket extends ClientPacket {
-	public RegisterPacket(String name, String password) {
+	private final int requestId;
+	private final String name;
+	private final String password;
+
+	public RegisterPacket(int requestId, String name, String password) {
 		super(ClientPacket.Type.REGISTER);
-		write(name);
-		write(password);
+		this.requestId = requestId;
+		this.name = name;
+		this.password = password;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.requestId);
+		writer.write(this.name);
+		writer.write(this.password);
 	}
 }
@@ -0,0 +1,27 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
+
+public class ResumePacket extends ClientPacket {
+	private final int requestId;
+	private final String token;
+	private final long lastSyncTime;
+	private final int features;
+
+	public ResumePacket(int requestId, String token, long lastSyncTime, int features) {
+		super(ClientPacket.Type.RESUME);
+		this.requestId = requestId;
+		this.token = token;
+		this.lastSyncTime = lastSyncTime;
+		this.features = features;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.requestId);
+		writer.write(this.token);
+		writer.writeTime(this.lastSyncTime);
+		writer.write((byte) this.features);
+	}
+}
@@ -0,0 +1,23 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Writer;
+
+public class SyncPacket extends ClientPacket {
+	public static final int ALL_TABLES = -1;
+
+	private final int tableId;
+	private final long since;
+
+	public SyncPacket(int tableId, long since) {
+		super(ClientPacket.Type.SYNC);
+		this.tableId = tableId;
+		this.since = since;
+	}
+
+	@Override
+	public void write(Writer writer) {
+		writer.write(this.tableId);
+		writer.writeTime(this.since);
+	}
+}
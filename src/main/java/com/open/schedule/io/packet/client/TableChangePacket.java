@@ -0,0 +1,9 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+
+public class TableChangePacket extends CreateTablePacket {
+	public TableChangePacket(int tableId, long time, String name, String description) {
+		super(ClientPacket.Type.TABLE_CHANGE, tableId, time, name, description);
+	}
+}
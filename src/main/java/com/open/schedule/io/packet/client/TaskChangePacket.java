@@ -0,0 +1,12 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+
+import java.util.Date;
+
+public class TaskChangePacket extends CreateTaskPacket {
+	public TaskChangePacket(int taskId, int tableId, long time, String name, String description,
+							Date startDate, Date endDate, Date startTime, Date endTime, Short period) {
+		super(ClientPacket.Type.TASK_CHANGE, taskId, tableId, time, name, description, startDate, endDate, startTime, endTime, period);
+	}
+}
@@ -0,0 +1,26 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+
+public class GlobalTableIdPacket extends ServerPacket {
+	public int tableId;
+	public int tableGlobalId;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new GlobalTableIdPacket(reader);
+		}
+	};
+
+	public GlobalTableIdPacket(Reader reader) {
+		super(ServerPacket.Type.GLOBAL_TABLE_ID, reader);
+	}
+
+	@Override
+	public void init() {
+		this.tableId = this.getInt();
+		this.tableGlobalId = this.getInt();
+	}
+}
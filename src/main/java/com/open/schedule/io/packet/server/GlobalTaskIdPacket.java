@@ -0,0 +1,28 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+
+public class GlobalTaskIdPacket extends ServerPacket {
+	public int tableId;
+	public int taskId;
+	public int taskGlobalId;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new GlobalTaskIdPacket(reader);
+		}
+	};
+
+	public GlobalTaskIdPacket(Reader reader) {
+		super(ServerPacket.Type.GLOBAL_TASK_ID, reader);
+	}
+
+	@Override
+	public void init() {
+		this.tableId = this.getInt();
+		this.taskId = this.getInt();
+		this.taskGlobalId = this.getInt();
+	}
+}
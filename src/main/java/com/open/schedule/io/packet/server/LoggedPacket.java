@@ -1,5 +1,7 @@
 package com.open.schedule.io.packet.server;
 
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Reader;
 import com.open.schedule.io.packet.ServerPacket;
 import com.open.schedule.utility.Utility;
 
@@ -9,19 +11,34 @@ public class LoggedPacket extends ServerPacket {
 		FAILURE
 	}
 
+	public int requestId;
 	public Status status;
-	public Integer id;
+	public int id;
+	public int features;
+	public String sessionToken;
 
-	public LoggedPacket(byte[] data) {
-		super(ServerPacket.Type.LOGGED, data);
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new LoggedPacket(reader);
+		}
+	};
+
+	public LoggedPacket(Reader reader) {
+		super(ServerPacket.Type.LOGGED, reader);
 	}
 
 	@Override
 	public void init() {
+		this.requestId = this.getInt();
 		this.status = Status.values()[this.getByte()];
 
 		if (this.status == Status.SUCCESS) {
 			this.id = this.getInt();
+			this.features = this.getByte() & 0xFF;
+
+			if (Feature.SESSION_RESUME.in(this.features))
+				this.sessionToken = this.getString();
 		}
 	}
 }
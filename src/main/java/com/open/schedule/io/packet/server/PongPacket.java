@@ -0,0 +1,24 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+
+public class PongPacket extends ServerPacket {
+	public long time;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new PongPacket(reader);
+		}
+	};
+
+	public PongPacket(Reader reader) {
+		super(ServerPacket.Type.PONG, reader);
+	}
+
+	@Override
+	public void init() {
+		this.time = this.getLong();
+	}
+}
@@ -1,5 +1,6 @@
 package com.open.schedule.io.packet.server;
 
+import com.open.schedule.io.packet.Reader;
 import com.open.schedule.io.packet.ServerPacket;
 
 public class RegisteredPacket extends ServerPacket {
@@ -8,14 +9,23 @@ public class RegisteredPacket extends ServerPacket {
 		FAILURE
 	}
 
+	public int requestId;
 	public Status status;
 
-	public RegisteredPacket(byte[] data) {
-		super(ServerPacket.Type.REGISTERED, data);
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new RegisteredPacket(reader);
+		}
+	};
+
+	public RegisteredPacket(Reader reader) {
+		super(ServerPacket.Type.REGISTERED, reader);
 	}
 
 	@Override
 	public void init() {
+		this.requestId = this.getInt();
 		this.status = Status.values()[this.getByte()];
 	}
 }
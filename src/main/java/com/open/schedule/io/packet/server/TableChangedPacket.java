@@ -0,0 +1,52 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+import com.open.schedule.io.packet.client.CreateTablePacket.Fields;
+
+import io.netty.handler.codec.CorruptedFrameException;
+
+public class TableChangedPacket extends ServerPacket {
+	private static final Fields[] FIELDS = Fields.values();
+
+	public int tableGlobalId;
+	public long time;
+	public int creatorId;
+
+	public String name = null;
+	public String description = null;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TableChangedPacket(reader);
+		}
+	};
+
+	public TableChangedPacket(Reader reader) {
+		super(ServerPacket.Type.TABLE_CHANGED, reader);
+	}
+
+	@Override
+	public void init() {
+		this.tableGlobalId = this.getInt();
+		this.time = this.getTime();
+		this.creatorId = this.getInt();
+
+		while (this.hasFields()) {
+			int field = this.getByte() & 0xFF;
+
+			if (field >= FIELDS.length)
+				throw new CorruptedFrameException("Unknown table field " + field);
+
+			switch (FIELDS[field]) {
+				case NAME:
+					this.name = this.getString();
+					break;
+				case DESCRIPTION:
+					this.description = this.getString();
+					break;
+			}
+		}
+	}
+}
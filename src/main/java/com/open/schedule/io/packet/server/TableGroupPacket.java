@@ -0,0 +1,35 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+
+import java.util.ArrayList;
+
+public class TableGroupPacket extends ServerPacket {
+	public ArrayList<TablePacket> tables;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TableGroupPacket(reader);
+		}
+	};
+
+	public TableGroupPacket(Reader reader) {
+		super(ServerPacket.Type.TABLE_GROUP, reader);
+	}
+
+	@Override
+	public void init() {
+		int number = this.getCount(TablePacket.MIN_SIZE);
+
+		this.tables = new ArrayList<>(number);
+
+		for (int i = 0; i < number; ++i) {
+			TablePacket table = new TablePacket(this.getReader());
+			table.init();
+
+			this.tables.add(table);
+		}
+	}
+}
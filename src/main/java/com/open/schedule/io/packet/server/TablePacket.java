@@ -1,8 +1,12 @@
 package com.open.schedule.io.packet.server;
 
+import com.open.schedule.io.packet.Reader;
 import com.open.schedule.io.packet.ServerPacket;
 
 public class TablePacket extends ServerPacket {
+	// В компактном режиме каждое из пяти полей занимает не меньше байта
+	static final int MIN_SIZE = 5;
+
 	public int tableGlobalId;
 	public long time;
 	public int creatorId;
@@ -10,14 +14,21 @@ public class TablePacket extends ServerPacket {
 	public String name;
 	public String description;
 
-	public TablePacket(byte[] data) {
-		super(ServerPacket.Type.TABLE, data);
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TablePacket(reader);
+		}
+	};
+
+	public TablePacket(Reader reader) {
+		super(ServerPacket.Type.TABLE, reader);
 	}
 
 	@Override
 	public void init() {
 		this.tableGlobalId = this.getInt();
-		this.time = this.getLong();
+		this.time = this.getTime();
 		this.creatorId = this.getInt();
 
 		this.name = this.getString();
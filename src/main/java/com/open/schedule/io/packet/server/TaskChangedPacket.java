@@ -0,0 +1,81 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.account.tables.TimeFormat;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+import com.open.schedule.io.packet.client.CreateTaskPacket.Fields;
+import com.open.schedule.utility.Utility;
+
+import java.util.Date;
+
+import io.netty.handler.codec.CorruptedFrameException;
+
+public class TaskChangedPacket extends ServerPacket {
+	private static final Fields[] FIELDS = Fields.values();
+
+	public int tableGlobalId;
+	public int taskGlobalId;
+	public long time;
+	public int creatorId;
+
+	public String name = null;
+	public String description = null;
+	public Date startDate = null;
+	public Date endDate = null;
+	public Date startTime = null;
+	public Date endTime = null;
+	public Short period = null;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TaskChangedPacket(reader);
+		}
+	};
+
+	public TaskChangedPacket(Reader reader) {
+		super(ServerPacket.Type.TASK_CHANGED, reader);
+	}
+
+	@Override
+	public void init() {
+		this.tableGlobalId = this.getInt();
+		this.taskGlobalId = this.getInt();
+		this.time = this.getTime();
+		this.creatorId = this.getInt();
+
+		boolean binaryTime = this.has(Feature.BINARY_TIME);
+
+		while (this.hasFields()) {
+			int field = this.getByte() & 0xFF;
+
+			if (field >= FIELDS.length)
+				throw new CorruptedFrameException("Unknown task field " + field);
+
+			switch (FIELDS[field]) {
+				case NAME:
+					this.name = this.getString();
+					break;
+				case DESCRIPTION:
+					this.description = this.getString();
+					break;
+				case START_DATE:
+					this.startDate = (binaryTime ? Utility.fromEpochDay(this.getInt()) : Utility.parseToDate(this.getString(), TimeFormat.DATE_FORMATTER));
+					break;
+				case END_DATE:
+					this.endDate = (binaryTime ? Utility.fromEpochDay(this.getInt()) : Utility.parseToDate(this.getString(), TimeFormat.DATE_FORMATTER));
+					break;
+				case START_TIME:
+					this.startTime = (binaryTime ? Utility.fromMinuteOfDay(this.getShort()) : Utility.parseToDate(this.getString(), TimeFormat.TIME_FORMATTER));
+					break;
+				case END_TIME:
+					this.endTime = (binaryTime ? Utility.fromMinuteOfDay(this.getShort()) : Utility.parseToDate(this.getString(), TimeFormat.TIME_FORMATTER));
+					break;
+				case PERIOD:
+					this.period = this.getShort();
+					break;
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.open.schedule.io.packet.server;
+
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.ServerPacket;
+
+import java.util.ArrayList;
+
+public class TaskGroupPacket extends ServerPacket {
+	public ArrayList<TaskPacket> tasks;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TaskGroupPacket(reader);
+		}
+	};
+
+	public TaskGroupPacket(Reader reader) {
+		super(ServerPacket.Type.TASK_GROUP, reader);
+	}
+
+	@Override
+	public void init() {
+		int number = this.getCount(TaskPacket.MIN_SIZE);
+
+		this.tasks = new ArrayList<>(number);
+
+		for (int i = 0; i < number; ++i) {
+			TaskPacket task = new TaskPacket(this.getReader());
+			task.init();
+
+			this.tasks.add(task);
+		}
+	}
+}
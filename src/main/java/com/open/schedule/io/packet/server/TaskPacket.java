@@ -1,38 +1,61 @@
 package com.open.schedule.io.packet.server;
 
+import com.open.schedule.account.tables.TimeFormat;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Reader;
 import com.open.schedule.io.packet.ServerPacket;
+import com.open.schedule.utility.Utility;
+
+import java.util.Date;
 
 public class TaskPacket extends ServerPacket {
-	public int tableId;
-	public int taskId;
+	// В компактном режиме каждое из одиннадцати полей занимает не меньше байта
+	static final int MIN_SIZE = 11;
+
+	public int tableGlobalId;
+	public int taskGlobalId;
 	public long time;
 	public int creatorId;
 
 	public String name;
 	public String description;
-	public String startDate;
-	public String endDate;
-	public String startTime;
-	public String endTime;
-	public Short period;
-
-	public TaskPacket(byte[] data) {
-		super(ServerPacket.Type.TASK, data);
+	public Date startDate;
+	public Date endDate;
+	public Date startTime;
+	public Date endTime;
+	public short period;
+
+	public static final Factory FACTORY = new Factory() {
+		@Override
+		public ServerPacket create(Reader reader) {
+			return new TaskPacket(reader);
+		}
+	};
+
+	public TaskPacket(Reader reader) {
+		super(ServerPacket.Type.TASK, reader);
 	}
 
 	@Override
 	public void init() {
-		this.tableId = this.getInt();
-		this.taskId = this.getInt();
-		this.time = this.getLong();
+		this.tableGlobalId = this.getInt();
+		this.taskGlobalId = this.getInt();
+		this.time = this.getTime();
 		this.creatorId = this.getInt();
 
 		this.name = this.getString();
 		this.description = this.getString();
-		this.startDate = this.getString();
-		this.endDate = this.getString();
-		this.startTime = this.getString();
-		this.endDate = this.getString();
+		if (this.has(Feature.BINARY_TIME)) {
+			this.startDate = Utility.fromEpochDay(this.getInt());
+			this.endDate = Utility.fromEpochDay(this.getInt());
+			this.startTime = Utility.fromMinuteOfDay(this.getShort());
+			this.endTime = Utility.fromMinuteOfDay(this.getShort());
+		} else {
+			this.startDate = Utility.parseToDate(this.getString(), TimeFormat.DATE_FORMATTER);
+			this.endDate = Utility.parseToDate(this.getString(), TimeFormat.DATE_FORMATTER);
+			this.startTime = Utility.parseToDate(this.getString(), TimeFormat.TIME_FORMATTER);
+			this.endTime = Utility.parseToDate(this.getString(), TimeFormat.TIME_FORMATTER);
+		}
 
 		this.period = this.getShort();
 	}
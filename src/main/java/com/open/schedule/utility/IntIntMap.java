@@ -0,0 +1,130 @@
+package com.open.schedule.utility;
+
+import java.util.Arrays;
+
+public class IntIntMap {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	private int[] values;
+	private boolean[] used;
+
+	private int size = 0;
+	private int threshold;
+
+	public IntIntMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntIntMap(int expectedSize) {
+		this.allocate(capacityFor(expectedSize));
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean containsKey(int key) {
+		return this.used[this.indexOf(key)];
+	}
+
+	public int get(int key, int defaultValue) {
+		int index = this.indexOf(key);
+		return (this.used[index] ? this.values[index] : defaultValue);
+	}
+
+	public void put(int key, int value) {
+		int index = this.indexOf(key);
+
+		if (!this.used[index]) {
+			this.used[index] = true;
+			this.keys[index] = key;
+
+			if (++this.size > this.threshold) {
+				this.values[index] = value;
+				this.rehash(this.keys.length * 2);
+				return;
+			}
+		}
+
+		this.values[index] = value;
+	}
+
+	public void remove(int key) {
+		int index = this.indexOf(key);
+
+		if (!this.used[index])
+			return;
+
+		this.used[index] = false;
+		this.size--;
+
+		int mask = this.keys.length - 1;
+
+		for (int next = (index + 1) & mask; this.used[next]; next = (next + 1) & mask) {
+			int ideal = mix(this.keys[next]) & mask;
+
+			if (((next - ideal) & mask) >= ((next - index) & mask)) {
+				this.keys[index] = this.keys[next];
+				this.values[index] = this.values[next];
+				this.used[index] = true;
+				this.used[next] = false;
+				index = next;
+			}
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(this.used, false);
+		this.size = 0;
+	}
+
+	private int indexOf(int key) {
+		int mask = this.keys.length - 1;
+		int index = mix(key) & mask;
+
+		while (this.used[index] && this.keys[index] != key)
+			index = (index + 1) & mask;
+
+		return index;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		boolean[] oldUsed = this.used;
+
+		this.allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldUsed[i]) {
+				int index = this.indexOf(oldKeys[i]);
+				this.used[index] = true;
+				this.keys[index] = oldKeys[i];
+				this.values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new int[capacity];
+		this.values = new int[capacity];
+		this.used = new boolean[capacity];
+		this.threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+
+		while (capacity * LOAD_FACTOR < expectedSize)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	private static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
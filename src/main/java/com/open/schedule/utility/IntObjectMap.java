@@ -0,0 +1,196 @@
+package com.open.schedule.utility;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class IntObjectMap<V> implements Iterable<V> {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	private Object[] values;
+
+	private int size = 0;
+	private int threshold;
+	// Увеличивается при каждом добавлении или удалении ключа, чтобы адаптеры знали, когда пересчитывать порядок
+	private int modCount = 0;
+
+	public IntObjectMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntObjectMap(int expectedSize) {
+		this.allocate(capacityFor(expectedSize));
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public int getModCount() {
+		return this.modCount;
+	}
+
+	public boolean containsKey(int key) {
+		return this.values[this.indexOf(key)] != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		return (V) this.values[this.indexOf(key)];
+	}
+
+	public void put(int key, V value) {
+		if (value == null)
+			throw new NullPointerException("Null values are not supported");
+
+		int index = this.indexOf(key);
+
+		if (this.values[index] == null) {
+			this.keys[index] = key;
+			this.values[index] = value;
+			this.modCount++;
+
+			if (++this.size > this.threshold)
+				this.rehash(this.keys.length * 2);
+			return;
+		}
+
+		this.values[index] = value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int index = this.indexOf(key);
+		V removed = (V) this.values[index];
+
+		if (removed == null)
+			return null;
+
+		this.values[index] = null;
+		this.size--;
+		this.modCount++;
+
+		int mask = this.keys.length - 1;
+
+		for (int next = (index + 1) & mask; this.values[next] != null; next = (next + 1) & mask) {
+			int ideal = mix(this.keys[next]) & mask;
+
+			if (((next - ideal) & mask) >= ((next - index) & mask)) {
+				this.keys[index] = this.keys[next];
+				this.values[index] = this.values[next];
+				this.values[next] = null;
+				index = next;
+			}
+		}
+
+		return removed;
+	}
+
+	public void clear() {
+		Arrays.fill(this.values, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	public int[] sortedKeys() {
+		int[] result = new int[this.size];
+		int count = 0;
+
+		for (int i = 0; i < this.keys.length; ++i) {
+			if (this.values[i] != null)
+				result[count++] = this.keys[i];
+		}
+
+		Arrays.sort(result);
+		return result;
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return new Iterator<V>() {
+			private int index = this.advance(0);
+
+			private int advance(int from) {
+				Object[] values = IntObjectMap.this.values;
+
+				while (from < values.length && values[from] == null)
+					from++;
+
+				return from;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return this.index < IntObjectMap.this.values.length;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public V next() {
+				if (!this.hasNext())
+					throw new NoSuchElementException();
+
+				V value = (V) IntObjectMap.this.values[this.index];
+				this.index = this.advance(this.index + 1);
+
+				return value;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private int indexOf(int key) {
+		int mask = this.keys.length - 1;
+		int index = mix(key) & mask;
+
+		while (this.values[index] != null && this.keys[index] != key)
+			index = (index + 1) & mask;
+
+		return index;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+
+		this.allocate(capacity);
+
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldValues[i] != null) {
+				int index = this.indexOf(oldKeys[i]);
+				this.keys[index] = oldKeys[i];
+				this.values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new int[capacity];
+		this.values = new Object[capacity];
+		this.threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+
+		while (capacity * LOAD_FACTOR < expectedSize)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	private static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
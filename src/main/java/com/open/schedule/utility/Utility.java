@@ -4,10 +4,15 @@ import android.util.Log;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 
 public class Utility {
 	private static final String LOG_TAG = Utility.class.getName();
 
+	private static final long MILLIS_IN_MINUTE = 60 * 1000L;
+	private static final long MILLIS_IN_DAY = 24 * 60 * MILLIS_IN_MINUTE;
+	private static final int MINUTES_IN_DAY = 24 * 60;
+
 	public static long getUnixTime() {
 		return System.currentTimeMillis() / 1000L;
 	}
@@ -41,4 +46,37 @@ public class Utility {
 			return dateValue;
 		}
 	}
+
+	public static Integer toEpochDay(Date date) {
+		if (date == null) {
+			return null;
+		}
+
+		long local = date.getTime() + TimeZone.getDefault().getOffset(date.getTime());
+
+		return (int) Math.floor((double) local / MILLIS_IN_DAY);
+	}
+
+	public static Date fromEpochDay(int day) {
+		long local = day * MILLIS_IN_DAY;
+
+		return new Date(local - TimeZone.getDefault().getOffset(local));
+	}
+
+	public static Short toMinuteOfDay(Date time) {
+		if (time == null) {
+			return null;
+		}
+
+		long local = time.getTime() + TimeZone.getDefault().getOffset(time.getTime());
+		long minutes = (local / MILLIS_IN_MINUTE) % MINUTES_IN_DAY;
+
+		return (short) (minutes < 0 ? minutes + MINUTES_IN_DAY : minutes);
+	}
+
+	public static Date fromMinuteOfDay(short minute) {
+		long local = minute * MILLIS_IN_MINUTE;
+
+		return new Date(local - TimeZone.getDefault().getOffset(local));
+	}
 }
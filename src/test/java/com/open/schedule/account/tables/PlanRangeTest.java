@@ -0,0 +1,136 @@
+package com.open.schedule.account.tables;
+
+import com.open.schedule.config.Config;
+import com.open.schedule.utility.Utility;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlanRangeTest {
+	private static final int FROM = 16360;
+
+	private int windowDays;
+
+	@Before
+	public void setUp() {
+		this.windowDays = Config.RANGE_WINDOW_DAYS;
+		Config.RANGE_WINDOW_DAYS = 7;
+	}
+
+	@After
+	public void tearDown() {
+		Config.RANGE_WINDOW_DAYS = this.windowDays;
+	}
+
+	@Test
+	public void matchesScanAcrossWindowsSingleThreaded() {
+		this.checkRandom(500, 1);
+	}
+
+	@Test
+	public void matchesScanAcrossWindowsInParallel() {
+		// Больше порога: окна считаются частями в пуле потоков
+		this.checkRandom(5000, 2);
+	}
+
+	@Test
+	public void windowBoundaryDays() {
+		TaskColumns columns = new TaskColumns();
+		int windowEnd = FROM + Config.RANGE_WINDOW_DAYS - 1;
+
+		// Задания начинаются, кончаются и повторяются ровно на границах окон
+		add(columns, windowEnd, windowEnd, (short) 0);
+		add(columns, windowEnd + 1, windowEnd + 1, (short) 0);
+		add(columns, FROM, windowEnd, (short) 1);
+		add(columns, FROM - 1, null, (short) Config.RANGE_WINDOW_DAYS);
+		add(columns, windowEnd, null, (short) Config.RANGE_WINDOW_DAYS);
+		add(columns, FROM - 3, FROM + 2 * Config.RANGE_WINDOW_DAYS, (short) 3);
+
+		assertMatches(columns, FROM, FROM + 4 * Config.RANGE_WINDOW_DAYS);
+	}
+
+	@Test(timeout = 10000)
+	public void rangeEndingAtLastDayTerminates() {
+		TaskColumns columns = new TaskColumns();
+
+		add(columns, FROM, null, (short) 1);
+		add(columns, FROM, null, (short) 7);
+		add(columns, FROM + 3, null, (short) 5);
+		add(columns, FROM, FROM + 100, (short) 1);
+
+		assertMatches(columns, Integer.MAX_VALUE - 20, Integer.MAX_VALUE);
+		assertMatches(columns, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void emptyAndReversedRanges() {
+		TaskColumns columns = new TaskColumns();
+		add(columns, FROM, FROM, (short) 0);
+
+		assertFalse(new PlanRange(columns, FROM + 1, FROM + 50).nextDay());
+		assertFalse(new PlanRange(columns, FROM, FROM - 1).nextDay());
+	}
+
+	private void checkRandom(int tasks, long seed) {
+		Random random = new Random(seed);
+		TaskColumns columns = new TaskColumns();
+
+		for (int i = 0; i < tasks; ++i) {
+			int startDay = FROM - 30 + random.nextInt(90);
+			Integer endDay = (random.nextInt(4) == 0 ? null : startDay + random.nextInt(60));
+			short period = (short) (random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(14));
+
+			add(columns, startDay, endDay, period);
+		}
+
+		assertMatches(columns, FROM, FROM + 75);
+	}
+
+	private static void assertMatches(TaskColumns columns, int fromDay, int toDay) {
+		PlanRange range = new PlanRange(columns, fromDay, toDay);
+		List<Long> days = new ArrayList<>();
+
+		for (long day = fromDay; day <= toDay; ++day) {
+			Set<Task> expected = new HashSet<>();
+
+			for (int row = 0; row < columns.size(); ++row) {
+				if (TaskColumns.occursOn(columns.getStartDay(row), columns.getEndDay(row), columns.getPeriod(row), (int) day))
+					expected.add(columns.getTask(row));
+			}
+
+			if (expected.isEmpty())
+				continue;
+
+			days.add(day);
+
+			assertTrue("range ended before day " + day, range.nextDay());
+			assertEquals(day, range.getDay());
+
+			Set<Task> actual = new HashSet<>();
+			for (int i = 0; i < range.getCount(); ++i) {
+				actual.add(range.getTask(i));
+			}
+
+			assertEquals("day " + day, expected.size(), range.getCount());
+			assertEquals("day " + day, expected, actual);
+		}
+
+		assertFalse(range.nextDay());
+	}
+
+	private static void add(TaskColumns columns, int startDay, Integer endDay, short period) {
+		columns.add(new Task(columns.size(), 1, "task", null, 1, Utility.fromEpochDay(startDay),
+				(endDay != null ? Utility.fromEpochDay(endDay) : null), null, null, period, 1414000000L));
+	}
+}
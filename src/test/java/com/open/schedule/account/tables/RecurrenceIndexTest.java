@@ -0,0 +1,118 @@
+package com.open.schedule.account.tables;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecurrenceIndexTest {
+	private static final int DAY = 16400;
+	private static final int MAX_ROWS = 2000;
+
+	@Test
+	public void endingOnQueryDayIsVisitedEndedIsNot() {
+		RecurrenceIndex index = new RecurrenceIndex();
+
+		index.set(0, DAY - 7, DAY, 7);
+		index.set(1, DAY - 7, DAY - 1, 1);
+		index.set(2, DAY - 14, DAY - 7, 7);
+		index.set(3, DAY, DAY, 0);
+		index.set(4, DAY - 1, DAY - 1, 0);
+		index.set(5, DAY - 3, TaskColumns.NO_DAY, 3);
+		index.set(6, DAY + 1, TaskColumns.NO_DAY, 1);
+
+		assertEquals(new HashSet<>(Arrays.asList(0, 3, 5)), visit(index, DAY));
+		assertEquals(new HashSet<>(Arrays.asList(1, 4)), visit(index, DAY - 1));
+	}
+
+	@Test
+	public void matchesScanForRandomSetMoveRemove() {
+		Random random = new Random(1);
+		RecurrenceIndex index = new RecurrenceIndex();
+
+		int[] startDays = new int[MAX_ROWS];
+		int[] endDays = new int[MAX_ROWS];
+		int[] periods = new int[MAX_ROWS];
+		int size = 0;
+
+		for (int step = 0; step < 50000; ++step) {
+			int operation = random.nextInt(10);
+
+			if (size == 0 || (operation < 4 && size < MAX_ROWS)) {
+				int row = size++;
+				set(index, random, row, startDays, endDays, periods);
+			} else if (operation < 7) {
+				set(index, random, random.nextInt(size), startDays, endDays, periods);
+			} else {
+				// Удаление как в TaskColumns: последняя строка переезжает на место удалённой
+				int row = random.nextInt(size);
+				int last = --size;
+
+				index.remove(row);
+
+				if (row != last) {
+					startDays[row] = startDays[last];
+					endDays[row] = endDays[last];
+					periods[row] = periods[last];
+					index.move(last, row);
+				}
+			}
+
+			if (step % 250 != 0)
+				continue;
+
+			for (int day = DAY - 40; day <= DAY + 260; day += 3) {
+				Set<Integer> expected = new HashSet<>();
+
+				for (int row = 0; row < size; ++row) {
+					if (TaskColumns.occursOn(startDays[row], endDays[row], periods[row], day))
+						expected.add(row);
+				}
+
+				assertEquals("step " + step + ", day " + day, expected, visit(index, day));
+			}
+		}
+	}
+
+	private static void set(RecurrenceIndex index, Random random, int row, int[] startDays, int[] endDays, int[] periods) {
+		int startDay = (random.nextInt(20) == 0 ? TaskColumns.NO_DAY : DAY - 30 + random.nextInt(200));
+		int period = (random.nextInt(4) == 0 ? 0 : random.nextInt(16) - 1);
+		int endDay;
+
+		// Часть заданий кончается прямо в день запроса или уже закончилась к нему
+		switch (random.nextInt(4)) {
+			case 0:
+				endDay = TaskColumns.NO_DAY;
+				break;
+			case 1:
+				endDay = DAY - 40 + 3 * random.nextInt(100);
+				break;
+			default:
+				endDay = (startDay == TaskColumns.NO_DAY ? DAY : startDay + random.nextInt(120) - 5);
+		}
+
+		startDays[row] = startDay;
+		endDays[row] = endDay;
+		periods[row] = period;
+
+		index.set(row, startDay, endDay, period);
+	}
+
+	private static Set<Integer> visit(RecurrenceIndex index, int day) {
+		final Set<Integer> rows = new HashSet<>();
+
+		index.forEachOn(day, new TaskColumns.Visitor() {
+			@Override
+			public void visit(int row) {
+				assertTrue("row " + row + " visited twice", rows.add(row));
+			}
+		});
+
+		return rows;
+	}
+}
@@ -0,0 +1,255 @@
+package com.open.schedule.io;
+
+import com.open.schedule.account.tables.ChangeableData;
+import com.open.schedule.account.tables.Table;
+import com.open.schedule.account.tables.Task;
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.Writer;
+import com.open.schedule.utility.Utility;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutboxTest {
+	private static final long TIME = 1414000000L;
+	private static final int CREATOR = 42;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = File.createTempFile("outbox", null);
+		this.file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+		new File(this.file.getPath() + ".tmp").delete();
+	}
+
+	@Test
+	public void changeOfServerKnownTableUsesGlobalId() {
+		Outbox outbox = new Outbox(this.file);
+		Table table = new Table(5, "name", "description", CREATOR, TIME);
+		table.setGlobalId(500);
+
+		Table.TableChange change = table.new TableChange(CREATOR, TIME + 1, "renamed", null);
+		outbox.addChange(table, change, table.getGlobalId());
+
+		ArrayList<Outbox.Record> drained = outbox.drain(10);
+		assertEquals(1, drained.size());
+
+		Reader reader = encode(drained.get(0).toPacket());
+		assertEquals(500, reader.readInt());
+		assertEquals(TIME + 1, reader.readTime());
+
+		// Эхо сервера приходит с глобальным идентификатором
+		outbox.acknowledgeTableChange(500, TIME + 1);
+		assertEquals(0, outbox.size());
+	}
+
+	@Test
+	public void changeOfServerKnownTaskUsesGlobalIds() {
+		Outbox outbox = new Outbox(this.file);
+		Task task = task(7, 5);
+		task.setGlobalId(700);
+
+		Task.TaskChange change = task.new TaskChange(CREATOR, TIME + 1, null, "moved", null, null, null, null, null);
+		outbox.addChange(task, change, 500);
+
+		Reader reader = encode(outbox.drain(10).get(0).toPacket());
+		assertEquals(700, reader.readInt());
+		assertEquals(500, reader.readInt());
+
+		outbox.acknowledgeTaskChange(700, TIME + 1);
+		assertEquals(0, outbox.size());
+	}
+
+	@Test
+	public void taskWaitsForParentTableGlobalId() throws Exception {
+		Outbox outbox = new Outbox(this.file);
+		Table table = new Table(5, "name", "description", CREATOR, TIME);
+		Task task = task(7, 5);
+
+		outbox.add(table, ChangeableData.NO_ID);
+		outbox.add(task, ChangeableData.NO_ID);
+		outbox.addChange(table, table.new TableChange(CREATOR, TIME + 2, "renamed", null), ChangeableData.NO_ID);
+
+		ArrayList<Outbox.Record> drained = outbox.drain(10);
+		assertEquals(1, drained.size());
+		assertTrue(drained.get(0).isTable());
+		assertFalse(outbox.hasReady());
+
+		outbox.acknowledgeTable(5, 500);
+		assertTrue(outbox.hasReady());
+
+		// Разрешённые идентификаторы переживают перезапуск
+		outbox.awaitWrites();
+		outbox = new Outbox(this.file);
+
+		drained = outbox.drain(10);
+		assertEquals(2, drained.size());
+
+		Reader reader = encode(drained.get(0).toPacket());
+		assertEquals(7, reader.readInt());
+		assertEquals(500, reader.readInt());
+
+		reader = encode(drained.get(1).toPacket());
+		assertEquals(500, reader.readInt());
+	}
+
+	@Test
+	public void changeAddedAfterAckPicksUpGlobalId() {
+		Outbox outbox = new Outbox(this.file);
+		Table table = new Table(5, "name", "description", CREATOR, TIME);
+		Task task = task(7, 5);
+
+		outbox.add(table, ChangeableData.NO_ID);
+		outbox.add(task, ChangeableData.NO_ID);
+		outbox.drain(10);
+
+		outbox.acknowledgeTable(5, 500);
+		outbox.drain(10);
+		outbox.acknowledgeTask(7, 700);
+
+		// Изменение задания, созданного в этом запуске: сам Task ещё может не знать своего глобального идентификатора
+		outbox.addChange(task, task.new TaskChange(CREATOR, TIME + 3, "renamed", null, null, null, null, null, null), ChangeableData.NO_ID);
+
+		Reader reader = encode(outbox.drain(10).get(0).toPacket());
+		assertEquals(700, reader.readInt());
+		assertEquals(500, reader.readInt());
+	}
+
+	@Test
+	public void reloadAfterTruncatedTail() throws Exception {
+		Outbox outbox = new Outbox(this.file);
+
+		for (int id = 0; id < 3; ++id) {
+			outbox.add(new Table(id, "table " + id, "description", CREATOR, TIME + id), ChangeableData.NO_ID);
+		}
+
+		outbox.awaitWrites();
+
+		// Процесс умер посреди записи последней записи
+		RandomAccessFile raw = new RandomAccessFile(this.file, "rw");
+		raw.setLength(raw.length() - 3);
+		raw.close();
+
+		outbox = new Outbox(this.file);
+		assertEquals(Arrays.asList(0, 1), ids(outbox.drain(10)));
+
+		// Недописанный хвост отрезан, поэтому новая запись читается после перезапуска
+		outbox.add(new Table(3, "table 3", "description", CREATOR, TIME + 3), ChangeableData.NO_ID);
+		outbox.awaitWrites();
+
+		assertEquals(Arrays.asList(0, 1, 3), ids(new Outbox(this.file).drain(10)));
+	}
+
+	@Test
+	public void acksDuringCompactionSurviveReload() throws Exception {
+		final Outbox outbox = new Outbox(this.file);
+		final int records = 1000;
+
+		for (int id = 0; id < records; ++id) {
+			outbox.add(new Table(id, "table " + id, "description", CREATOR, TIME + id), ChangeableData.NO_ID);
+		}
+
+		outbox.drain(records);
+
+		// Подтверждения идут из двух потоков, пока поток диска переписывает файл
+		Thread odd = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int id = 1; id < records; id += 2) {
+					outbox.acknowledgeTable(id, 10000 + id);
+				}
+			}
+		});
+		odd.start();
+
+		for (int id = 0; id < records; id += 4) {
+			outbox.acknowledgeTable(id, 10000 + id);
+		}
+
+		odd.join();
+		outbox.awaitWrites();
+
+		List<Integer> expected = new ArrayList<>();
+		for (int id = 2; id < records; id += 4) {
+			expected.add(id);
+		}
+
+		assertEquals(expected.size(), outbox.size());
+		assertEquals(expected, ids(new Outbox(this.file).drain(records)));
+		assertFalse(new File(this.file.getPath() + ".tmp").exists());
+	}
+
+	@Test
+	public void resendKeepsQueueOrderAfterChannelInactive() {
+		Outbox outbox = new Outbox(this.file);
+		Table table = new Table(5, "name", "description", CREATOR, TIME);
+		table.setGlobalId(500);
+
+		outbox.add(new Table(1, "first", "description", CREATOR, TIME), ChangeableData.NO_ID);
+		outbox.addChange(table, table.new TableChange(CREATOR, TIME + 1, "renamed", null), 500);
+		outbox.add(new Table(2, "second", "description", CREATOR, TIME), ChangeableData.NO_ID);
+
+		EmbeddedChannel channel = new EmbeddedChannel(new Client(null, outbox));
+
+		assertEquals(2, outbox.drain(2).size());
+		outbox.acknowledgeTable(1, 100);
+
+		// Изменение не отправленной записи дописывается на её место в очереди
+		outbox.add(new Table(3, "third", "description", CREATOR, TIME), ChangeableData.NO_ID);
+		outbox.addChange(table, table.new TableChange(CREATOR, TIME + 2, null, "later"), 500);
+
+		// finish() закрывает канал и выполняет отложенный channelInactive
+		channel.finish();
+
+		ArrayList<Outbox.Record> drained = outbox.drain(10);
+		assertEquals(Arrays.asList(5, 2, 3, 5), ids(drained));
+		assertEquals(TIME + 1, drained.get(0).time);
+		assertEquals(TIME + 2, drained.get(3).time);
+		assertFalse(outbox.hasReady());
+	}
+
+	private static List<Integer> ids(List<Outbox.Record> records) {
+		List<Integer> ids = new ArrayList<>();
+
+		for (Outbox.Record record : records) {
+			ids.add(record.id);
+		}
+
+		return ids;
+	}
+
+	private static Task task(int id, int tableId) {
+		return new Task(id, tableId, "task", "description", CREATOR, Utility.fromEpochDay(16366), Utility.fromEpochDay(16731),
+				Utility.fromMinuteOfDay((short) 615), Utility.fromMinuteOfDay((short) 710), (short) 7, TIME);
+	}
+
+	private static Reader encode(ClientPacket packet) {
+		ByteBuf data = Unpooled.buffer();
+		packet.write(new Writer(data));
+
+		return new Reader(data, 0);
+	}
+}
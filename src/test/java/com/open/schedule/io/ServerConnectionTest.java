@@ -0,0 +1,165 @@
+package com.open.schedule.io;
+
+import com.open.schedule.config.Config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+
+public class ServerConnectionTest {
+	private static final String HOST = "127.0.0.1";
+	private static final long ACCEPT_TIMEOUT = 5000;
+
+	private long minDelay;
+	private long maxDelay;
+
+	private File outboxFile;
+	private ServerConnection connection;
+	private StandInServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		this.minDelay = Config.RECONNECT_MIN_DELAY;
+		this.maxDelay = Config.RECONNECT_MAX_DELAY;
+
+		this.outboxFile = File.createTempFile("outbox", null);
+		this.outboxFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.connection != null)
+			this.connection.shutdown();
+
+		if (this.server != null)
+			this.server.close();
+
+		this.outboxFile.delete();
+
+		Config.RECONNECT_MIN_DELAY = this.minDelay;
+		Config.RECONNECT_MAX_DELAY = this.maxDelay;
+	}
+
+	@Test
+	public void reconnectsAfterServerDropsConnection() throws Exception {
+		Config.RECONNECT_MIN_DELAY = 20;
+		Config.RECONNECT_MAX_DELAY = 100;
+
+		this.server = new StandInServer(0);
+		this.connect(this.server.getPort());
+
+		this.server.accept().close();
+
+		assertNotNull("client did not come back after the server dropped it", this.server.accept());
+	}
+
+	@Test
+	public void keepsRetryingWhileServerIsDown() throws Exception {
+		Config.RECONNECT_MIN_DELAY = 5;
+		Config.RECONNECT_MAX_DELAY = 20;
+
+		int port = freePort();
+		this.connect(port);
+
+		// За это время при задержке не больше 20 мс набирается заметно больше 50 неудачных попыток
+		Thread.sleep(2500);
+
+		this.server = new StandInServer(port);
+
+		assertNotNull("client stopped retrying while the server was down", this.server.accept());
+	}
+
+	@Test
+	public void reconnectSkipsBackoff() throws Exception {
+		Config.RECONNECT_MIN_DELAY = 60 * 1000;
+		Config.RECONNECT_MAX_DELAY = 60 * 1000;
+
+		int port = freePort();
+		this.connect(port);
+
+		// Первая попытка неудачна, следующая запланирована не раньше чем через 30 секунд
+		Thread.sleep(500);
+
+		this.server = new StandInServer(port);
+		this.connection.reconnect();
+
+		assertNotNull("reconnect() waited for the backoff delay", this.server.accept());
+	}
+
+	private void connect(int port) {
+		Client client = new Client(null, new Outbox(this.outboxFile));
+
+		this.connection = new ServerConnection(client, HOST, port, new ServerConnection.Listener() {
+			@Override
+			public void connected() {
+			}
+
+			@Override
+			public void disconnected() {
+			}
+		});
+		this.connection.start();
+	}
+
+	private static int freePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	// Сервер-заглушка: только принимает соединения и ничего не отвечает
+	private static class StandInServer implements Runnable {
+		private final ServerSocket socket = new ServerSocket();
+		private final BlockingQueue<Socket> accepted = new LinkedBlockingQueue<>();
+		private final Thread thread = new Thread(this, "stand-in-server");
+
+		StandInServer(int port) throws IOException {
+			this.socket.setReuseAddress(true);
+			this.socket.bind(new InetSocketAddress(HOST, port));
+
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		int getPort() {
+			return this.socket.getLocalPort();
+		}
+
+		Socket accept() throws InterruptedException {
+			return this.accepted.poll(ACCEPT_TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					this.accepted.add(this.socket.accept());
+				}
+			} catch (IOException ignored) {
+			}
+		}
+
+		void close() throws IOException {
+			this.socket.close();
+
+			for (Socket client : this.accepted) {
+				client.close();
+			}
+		}
+	}
+}
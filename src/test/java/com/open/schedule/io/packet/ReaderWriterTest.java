@@ -0,0 +1,225 @@
+package com.open.schedule.io.packet;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ReaderWriterTest {
+	private static final int PLAIN = 0;
+	private static final int COMPACT = Feature.COMPACT_NUMBERS.mask;
+	private static final int[] FEATURES = {PLAIN, COMPACT};
+
+	private static final short[] SHORTS = {
+			0, 1, -1, 63, 64, -64, -65, 8191, 8192, -8192, -8193, Short.MAX_VALUE, Short.MIN_VALUE
+	};
+
+	private static final int[] INTS = {
+			0, 1, -1, 63, 64, -64, -65, 8191, 8192, -8193, 1048575, 1048576, Integer.MAX_VALUE, Integer.MIN_VALUE,
+			Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1
+	};
+
+	private static final long[] LONGS = {
+			0, 1, -1, 63, 64, -64, -65, Integer.MAX_VALUE, Integer.MIN_VALUE, (long) Integer.MAX_VALUE + 1,
+			(long) Integer.MIN_VALUE - 1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1
+	};
+
+	@Test
+	public void shortRoundTrip() {
+		for (int features : FEATURES) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			for (short value : SHORTS) {
+				writer.write(value);
+			}
+
+			Reader reader = new Reader(buffer, features);
+
+			for (short value : SHORTS) {
+				assertEquals("features " + features, value, reader.readShort());
+			}
+
+			assertFalse(reader.isReadable());
+		}
+	}
+
+	@Test
+	public void intRoundTrip() {
+		for (int features : FEATURES) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			for (int value : INTS) {
+				writer.write(value);
+			}
+
+			Reader reader = new Reader(buffer, features);
+
+			for (int value : INTS) {
+				assertEquals("features " + features, value, reader.readInt());
+			}
+
+			assertFalse(reader.isReadable());
+		}
+	}
+
+	@Test
+	public void longRoundTrip() {
+		for (int features : FEATURES) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			for (long value : LONGS) {
+				writer.write(value);
+			}
+
+			Reader reader = new Reader(buffer, features);
+
+			for (long value : LONGS) {
+				assertEquals("features " + features, value, reader.readLong());
+			}
+
+			assertFalse(reader.isReadable());
+		}
+	}
+
+	@Test
+	public void timeDeltasRoundTrip() {
+		// Первое значение становится базой, остальные кодируются разницей с ней, в том числе с переполнением
+		long[] times = {1414000000L, 1414000000L, 1414000001L, 1413999999L, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE, 1414086400L};
+
+		for (int features : FEATURES) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			for (long time : times) {
+				writer.writeTime(time);
+			}
+
+			Reader reader = new Reader(buffer, features);
+
+			for (long time : times) {
+				assertEquals("features " + features, time, reader.readTime());
+			}
+
+			assertFalse(reader.isReadable());
+		}
+	}
+
+	@Test
+	public void timeBaseIsExtremeValue() {
+		for (long base : new long[] {Long.MIN_VALUE, Long.MAX_VALUE}) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(COMPACT);
+
+			writer.writeTime(base);
+			writer.writeTime(-base);
+			writer.writeTime(0);
+
+			Reader reader = new Reader(buffer, COMPACT);
+
+			assertEquals(base, reader.readTime());
+			assertEquals(-base, reader.readTime());
+			assertEquals(0, reader.readTime());
+		}
+	}
+
+	@Test
+	public void wrapResetsTimeBase() {
+		ByteBuf first = Unpooled.buffer();
+		ByteBuf second = Unpooled.buffer();
+		Writer writer = new Writer(first).setFeatures(COMPACT);
+
+		writer.writeTime(1414000000L);
+		writer.wrap(second);
+		writer.writeTime(1414000100L);
+
+		assertEquals(1414000000L, new Reader(first, COMPACT).readTime());
+		assertEquals(1414000100L, new Reader(second, COMPACT).readTime());
+	}
+
+	@Test
+	public void compactSizes() {
+		assertEquals(1, encodedSize(0));
+		assertEquals(1, encodedSize(-1));
+		assertEquals(1, encodedSize(63));
+		assertEquals(1, encodedSize(-64));
+		assertEquals(2, encodedSize(64));
+		assertEquals(2, encodedSize(-65));
+		assertEquals(5, encodedSize(Integer.MAX_VALUE));
+		assertEquals(5, encodedSize(Integer.MIN_VALUE));
+		assertEquals(10, encodedSize(Long.MAX_VALUE));
+		assertEquals(10, encodedSize(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void sizeCounterMatchesEncoding() {
+		for (int features : FEATURES) {
+			final ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			Writable record = new Writable() {
+				@Override
+				public void write(Writer writer) {
+					for (long value : LONGS) {
+						writer.write(value);
+						writer.write((int) value);
+						writer.write((short) value);
+						writer.writeTime(value);
+					}
+
+					writer.write("ascii");
+					writer.write("кириллица");
+					writer.write("📅");
+				}
+			};
+
+			int expected = writer.sizeOf(record);
+			writer.write(record);
+
+			assertEquals("features " + features, expected, buffer.readableBytes());
+		}
+	}
+
+	@Test
+	public void stringRoundTrip() {
+		String[] values = {"", "ascii", "кириллица", "€", "📅 calendar"};
+
+		for (int features : FEATURES) {
+			ByteBuf buffer = Unpooled.buffer();
+			Writer writer = new Writer(buffer).setFeatures(features);
+
+			for (String value : values) {
+				writer.write(value);
+			}
+
+			Reader reader = new Reader(buffer, features);
+
+			for (String value : values) {
+				assertEquals("features " + features, value, reader.readString());
+			}
+		}
+	}
+
+	@Test(expected = CorruptedFrameException.class)
+	public void malformedVarint() {
+		ByteBuf buffer = Unpooled.buffer();
+
+		for (int i = 0; i < 11; ++i) {
+			buffer.writeByte(0x80);
+		}
+
+		new Reader(buffer, COMPACT).readLong();
+	}
+
+	private static int encodedSize(long value) {
+		ByteBuf buffer = Unpooled.buffer();
+		new Writer(buffer).setFeatures(COMPACT).write(value);
+		return buffer.readableBytes();
+	}
+}
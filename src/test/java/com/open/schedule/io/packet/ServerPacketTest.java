@@ -0,0 +1,327 @@
+package com.open.schedule.io.packet;
+
+import com.open.schedule.account.tables.TimeFormat;
+import com.open.schedule.io.packet.client.CreateTablePacket;
+import com.open.schedule.io.packet.client.CreateTaskPacket;
+import com.open.schedule.io.packet.server.GlobalTableIdPacket;
+import com.open.schedule.io.packet.server.GlobalTaskIdPacket;
+import com.open.schedule.io.packet.server.LoggedPacket;
+import com.open.schedule.io.packet.server.PongPacket;
+import com.open.schedule.io.packet.server.RegisteredPacket;
+import com.open.schedule.io.packet.server.TableChangedPacket;
+import com.open.schedule.io.packet.server.TableGroupPacket;
+import com.open.schedule.io.packet.server.TablePacket;
+import com.open.schedule.io.packet.server.TaskChangedPacket;
+import com.open.schedule.io.packet.server.TaskGroupPacket;
+import com.open.schedule.io.packet.server.TaskPacket;
+import com.open.schedule.utility.Utility;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+// Порядок полей каждого пакета сверяется с раскладкой, записанной вручную, чтобы ошибки вида
+// "endDate дважды, endTime ни разу" ловились до сервера
+public class ServerPacketTest {
+	private static final int[] FEATURES = {
+			0,
+			Feature.BINARY_TIME.mask,
+			Feature.COMPACT_NUMBERS.mask,
+			Feature.BINARY_TIME.mask | Feature.COMPACT_NUMBERS.mask
+	};
+
+	private static final int START_DAY = 16366;
+	private static final int END_DAY = 16731;
+	private static final short START_MINUTE = 615;
+	private static final short END_MINUTE = 1439;
+
+	@Test
+	public void dispatchTableMatchesTypes() {
+		for (ServerPacket.Type type : ServerPacket.Type.values()) {
+			assertSame(type, ServerPacket.Type.get(type.ordinal()));
+		}
+
+		assertNull(ServerPacket.Type.get(ServerPacket.Type.values().length));
+		assertFalse(ServerPacket.Type.NOT_USED_USER.isSupported());
+	}
+
+	@Test
+	public void registered() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(7);
+			writer.write((byte) RegisteredPacket.Status.FAILURE.ordinal());
+
+			RegisteredPacket packet = (RegisteredPacket) decode(data, ServerPacket.Type.REGISTERED, features);
+
+			assertEquals(7, packet.requestId);
+			assertEquals(RegisteredPacket.Status.FAILURE, packet.status);
+		}
+	}
+
+	@Test
+	public void logged() {
+		for (int features : FEATURES) {
+			int sessionFeatures = features | Feature.SESSION_RESUME.mask;
+
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(Integer.MAX_VALUE);
+			writer.write((byte) LoggedPacket.Status.SUCCESS.ordinal());
+			writer.write(42);
+			writer.write((byte) sessionFeatures);
+			writer.write("token");
+
+			LoggedPacket packet = (LoggedPacket) decode(data, ServerPacket.Type.LOGGED, features);
+
+			assertEquals(Integer.MAX_VALUE, packet.requestId);
+			assertEquals(LoggedPacket.Status.SUCCESS, packet.status);
+			assertEquals(42, packet.id);
+			assertEquals(sessionFeatures, packet.features);
+			assertEquals("token", packet.sessionToken);
+		}
+	}
+
+	@Test
+	public void globalIds() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(1);
+			writer.write(-2);
+
+			GlobalTableIdPacket table = (GlobalTableIdPacket) decode(data, ServerPacket.Type.GLOBAL_TABLE_ID, features);
+
+			assertEquals(1, table.tableId);
+			assertEquals(-2, table.tableGlobalId);
+
+			data = Unpooled.buffer();
+			writer = new Writer(data).setFeatures(features);
+			writer.write(3);
+			writer.write(4);
+			writer.write(Integer.MIN_VALUE);
+
+			GlobalTaskIdPacket task = (GlobalTaskIdPacket) decode(data, ServerPacket.Type.GLOBAL_TASK_ID, features);
+
+			assertEquals(3, task.tableId);
+			assertEquals(4, task.taskId);
+			assertEquals(Integer.MIN_VALUE, task.taskGlobalId);
+		}
+	}
+
+	@Test
+	public void pong() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(Long.MIN_VALUE);
+
+			assertEquals(Long.MIN_VALUE, ((PongPacket) decode(data, ServerPacket.Type.PONG, features)).time);
+		}
+	}
+
+	@Test
+	public void tableAndGroup() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writeTable(writer, 10);
+
+			assertTable((TablePacket) decode(data, ServerPacket.Type.TABLE, features), 10);
+
+			data = Unpooled.buffer();
+			writer = new Writer(data).setFeatures(features);
+			writer.write(2);
+			writeTable(writer, 11);
+			writeTable(writer, 12);
+
+			TableGroupPacket group = (TableGroupPacket) decode(data, ServerPacket.Type.TABLE_GROUP, features);
+
+			assertEquals(2, group.tables.size());
+			assertTable(group.tables.get(0), 11);
+			assertTable(group.tables.get(1), 12);
+		}
+	}
+
+	@Test
+	public void taskAndGroup() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writeTask(writer, 20);
+
+			assertTask((TaskPacket) decode(data, ServerPacket.Type.TASK, features), 20, features);
+
+			data = Unpooled.buffer();
+			writer = new Writer(data).setFeatures(features);
+			writer.write(2);
+			writeTask(writer, 21);
+			writeTask(writer, 22);
+
+			TaskGroupPacket group = (TaskGroupPacket) decode(data, ServerPacket.Type.TASK_GROUP, features);
+
+			assertEquals(2, group.tasks.size());
+			assertTask(group.tasks.get(0), 21, features);
+			assertTask(group.tasks.get(1), 22, features);
+		}
+	}
+
+	@Test
+	public void tableChanged() {
+		for (int features : FEATURES) {
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(5);
+			writer.writeTime(1414000000L);
+			writer.write(6);
+			writer.write((byte) CreateTablePacket.Fields.DESCRIPTION.ordinal(), "description");
+
+			TableChangedPacket packet = (TableChangedPacket) decode(data, ServerPacket.Type.TABLE_CHANGED, features);
+
+			assertEquals(5, packet.tableGlobalId);
+			assertEquals(1414000000L, packet.time);
+			assertEquals(6, packet.creatorId);
+			assertNull(packet.name);
+			assertEquals("description", packet.description);
+		}
+	}
+
+	@Test
+	public void taskChanged() {
+		for (int features : FEATURES) {
+			boolean binaryTime = Feature.BINARY_TIME.in(features);
+
+			ByteBuf data = Unpooled.buffer();
+			Writer writer = new Writer(data).setFeatures(features);
+			writer.write(5);
+			writer.write(6);
+			writer.writeTime(1414000000L);
+			writer.write(7);
+			writer.write((byte) CreateTaskPacket.Fields.END_DATE.ordinal(), (binaryTime ? (Object) END_DAY : formatDay(END_DAY)));
+			writer.write((byte) CreateTaskPacket.Fields.END_TIME.ordinal(), (binaryTime ? (Object) END_MINUTE : formatMinute(END_MINUTE)));
+			writer.write((byte) CreateTaskPacket.Fields.PERIOD.ordinal(), (short) 7);
+
+			TaskChangedPacket packet = (TaskChangedPacket) decode(data, ServerPacket.Type.TASK_CHANGED, features);
+
+			assertEquals(5, packet.tableGlobalId);
+			assertEquals(6, packet.taskGlobalId);
+			assertEquals(1414000000L, packet.time);
+			assertEquals(7, packet.creatorId);
+			assertNull(packet.name);
+			assertNull(packet.startDate);
+			assertNull(packet.startTime);
+			assertEquals(Integer.valueOf(END_DAY), Utility.toEpochDay(packet.endDate));
+			assertEquals(Short.valueOf(END_MINUTE), Utility.toMinuteOfDay(packet.endTime));
+			assertEquals(Short.valueOf((short) 7), packet.period);
+		}
+	}
+
+	@Test(expected = CorruptedFrameException.class)
+	public void unknownChangedField() {
+		ByteBuf data = Unpooled.buffer();
+		Writer writer = new Writer(data).setFeatures(0);
+		writer.write(5);
+		writer.writeTime(1414000000L);
+		writer.write(6);
+		writer.write((byte) CreateTablePacket.Fields.values().length, "unknown");
+
+		decode(data, ServerPacket.Type.TABLE_CHANGED, 0);
+	}
+
+	@Test(expected = CorruptedFrameException.class)
+	public void hugeGroupCount() {
+		ByteBuf data = Unpooled.buffer();
+		Writer writer = new Writer(data).setFeatures(0);
+		writer.write(Integer.MAX_VALUE);
+		writeTask(writer, 1);
+
+		ServerPacket.get(ServerPacket.Type.TASK_GROUP, data, 0);
+	}
+
+	@Test(expected = CorruptedFrameException.class)
+	public void negativeGroupCount() {
+		ByteBuf data = Unpooled.buffer();
+		Writer writer = new Writer(data).setFeatures(Feature.COMPACT_NUMBERS.mask);
+		writer.write(-1);
+		writeTable(writer, 1);
+
+		ServerPacket.get(ServerPacket.Type.TABLE_GROUP, data, Feature.COMPACT_NUMBERS.mask);
+	}
+
+	private static ServerPacket decode(ByteBuf data, ServerPacket.Type type, int features) {
+		ServerPacket packet = ServerPacket.get(type, data, features);
+
+		assertSame(type, packet.getType());
+		assertFalse("unread bytes in " + type, data.isReadable());
+		return packet;
+	}
+
+	private static void writeTable(Writer writer, int id) {
+		writer.write(id);
+		writer.writeTime(1414000000L + id);
+		writer.write(id + 1);
+		writer.write("table " + id);
+		writer.write("");
+	}
+
+	private static void assertTable(TablePacket packet, int id) {
+		assertEquals(id, packet.tableGlobalId);
+		assertEquals(1414000000L + id, packet.time);
+		assertEquals(id + 1, packet.creatorId);
+		assertEquals("table " + id, packet.name);
+		assertEquals("", packet.description);
+	}
+
+	private static void writeTask(Writer writer, int id) {
+		writer.write(id);
+		writer.write(id + 1);
+		writer.writeTime(1414000000L - id);
+		writer.write(id + 2);
+		writer.write("task " + id);
+		writer.write("description");
+
+		if (writer.has(Feature.BINARY_TIME)) {
+			writer.write(START_DAY);
+			writer.write(END_DAY);
+			writer.write(START_MINUTE);
+			writer.write(END_MINUTE);
+		} else {
+			writer.write(formatDay(START_DAY));
+			writer.write(formatDay(END_DAY));
+			writer.write(formatMinute(START_MINUTE));
+			writer.write(formatMinute(END_MINUTE));
+		}
+
+		writer.write((short) 7);
+	}
+
+	private static void assertTask(TaskPacket packet, int id, int features) {
+		assertEquals(id, packet.tableGlobalId);
+		assertEquals(id + 1, packet.taskGlobalId);
+		assertEquals(1414000000L - id, packet.time);
+		assertEquals(id + 2, packet.creatorId);
+		assertEquals("task " + id, packet.name);
+		assertEquals("description", packet.description);
+		assertEquals("features " + features, Integer.valueOf(START_DAY), Utility.toEpochDay(packet.startDate));
+		assertEquals("features " + features, Integer.valueOf(END_DAY), Utility.toEpochDay(packet.endDate));
+		assertEquals("features " + features, Short.valueOf(START_MINUTE), Utility.toMinuteOfDay(packet.startTime));
+		assertEquals("features " + features, Short.valueOf(END_MINUTE), Utility.toMinuteOfDay(packet.endTime));
+		assertEquals(7, packet.period);
+	}
+
+	private static String formatDay(int day) {
+		return Utility.parseToString(Utility.fromEpochDay(day), TimeFormat.DATE_FORMATTER);
+	}
+
+	private static String formatMinute(short minute) {
+		return Utility.parseToString(Utility.fromMinuteOfDay(minute), TimeFormat.TIME_FORMATTER);
+	}
+}
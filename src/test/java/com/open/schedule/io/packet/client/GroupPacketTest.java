@@ -0,0 +1,97 @@
+package com.open.schedule.io.packet.client;
+
+import com.open.schedule.io.packet.ClientPacket;
+import com.open.schedule.io.packet.Feature;
+import com.open.schedule.io.packet.Reader;
+import com.open.schedule.io.packet.Writer;
+import com.open.schedule.utility.Utility;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroupPacketTest {
+	private static final int[] FEATURES = {
+			0,
+			Feature.BINARY_TIME.mask,
+			Feature.COMPACT_NUMBERS.mask,
+			Feature.BINARY_TIME.mask | Feature.COMPACT_NUMBERS.mask
+	};
+
+	private static final long TIME = 1414000000L;
+	private static final Date START_DATE = Utility.fromEpochDay(16366);
+	private static final Date END_DATE = Utility.fromEpochDay(16731);
+	private static final Date START_TIME = Utility.fromMinuteOfDay((short) 615);
+	private static final Date END_TIME = Utility.fromMinuteOfDay((short) 710);
+
+	@Test
+	public void fullGroupFitsAndPrefixesMatchRecords() {
+		for (int features : FEATURES) {
+			CreateTaskGroupPacket group = new CreateTaskGroupPacket(features);
+			int id = 0;
+
+			// Большие идентификаторы занимают в компактном режиме 5 байт, больше, чем без него
+			while (group.add(task(Integer.MAX_VALUE - id))) {
+				++id;
+			}
+
+			assertFalse(group.add(task(id)));
+
+			ByteBuf data = Unpooled.buffer();
+			group.write(new Writer(data).setFeatures(features));
+
+			int size = data.readableBytes();
+			assertTrue(size <= ClientPacket.MAX_PACKET_SIZE);
+
+			Reader reader = new Reader(data, features);
+			int count = reader.readInt();
+			assertEquals(group.count(), count);
+
+			int recordSize = 0;
+
+			for (int i = 0; i < count; ++i) {
+				recordSize = reader.readInt();
+				data.skipBytes(recordSize);
+			}
+
+			assertEquals(0, data.readableBytes());
+
+			// Группа заполнена почти до предела: бюджет считается теми же правилами, что и запись
+			assertTrue(size + 2 * recordSize > ClientPacket.MAX_PACKET_SIZE);
+		}
+	}
+
+	@Test
+	public void prefixMatchesRecordWithTimeDelta() {
+		int features = Feature.BINARY_TIME.mask | Feature.COMPACT_NUMBERS.mask;
+		CreateTaskGroupPacket group = new CreateTaskGroupPacket(features);
+
+		group.add(task(1));
+		group.add(task(2));
+
+		ByteBuf data = Unpooled.buffer();
+		group.write(new Writer(data).setFeatures(features));
+
+		Reader reader = new Reader(data, features);
+		assertEquals(2, reader.readInt());
+
+		int first = reader.readInt();
+		data.skipBytes(first);
+
+		// Второе время пишется дельтой от первого, поэтому запись короче
+		int second = reader.readInt();
+		assertTrue(second < first);
+		assertEquals(second, data.readableBytes());
+	}
+
+	private static CreateTaskPacket task(int id) {
+		return new CreateTaskPacket(id, 1, TIME + id, "Матанализ", "Аудитория 1-204", START_DATE, END_DATE, START_TIME, END_TIME, (short) 7);
+	}
+}
@@ -0,0 +1,134 @@
+package com.open.schedule.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntIntMapTest {
+	private static final int NO_ID = -1;
+	private static final int CAPACITY = 16;
+
+	@Test
+	public void deleteWrapsAroundTableEnd() {
+		// Ключи с идеальной ячейкой в конце таблицы: цепочка переходит через её конец
+		List<Integer> keys = keysForSlot(CAPACITY - 1, 4);
+		keys.addAll(keysForSlot(0, 2));
+
+		for (int first = 0; first < keys.size(); ++first) {
+			IntIntMap map = new IntIntMap();
+
+			for (int key : keys) {
+				map.put(key, key + 1);
+			}
+
+			map.remove(keys.get(first));
+
+			assertEquals(keys.size() - 1, map.size());
+			assertFalse(map.containsKey(keys.get(first)));
+
+			for (int key : keys) {
+				if (key != keys.get(first))
+					assertEquals(key + 1, map.get(key, NO_ID));
+			}
+		}
+	}
+
+	@Test
+	public void resizeAfterManyRemoves() {
+		IntIntMap map = new IntIntMap();
+
+		for (int key = 0; key < 1000; ++key) {
+			map.put(key, key * 2);
+		}
+
+		for (int key = 0; key < 990; ++key) {
+			map.remove(key);
+		}
+
+		for (int key = 1000; key < 3000; ++key) {
+			map.put(key, key * 2);
+		}
+
+		assertEquals(2010, map.size());
+
+		for (int key = 0; key < 3000; ++key) {
+			assertEquals(key >= 990, map.containsKey(key));
+
+			if (key >= 990)
+				assertEquals(key * 2, map.get(key, NO_ID));
+		}
+	}
+
+	@Test
+	public void zeroKeyAndSentinelValues() {
+		IntIntMap map = new IntIntMap();
+
+		assertFalse(map.containsKey(0));
+		assertEquals(NO_ID, map.get(0, NO_ID));
+
+		map.put(0, 0);
+		map.put(NO_ID, NO_ID);
+		map.put(Integer.MIN_VALUE, 7);
+
+		assertTrue(map.containsKey(0));
+		assertEquals(0, map.get(0, NO_ID));
+		assertTrue(map.containsKey(NO_ID));
+		assertEquals(NO_ID, map.get(NO_ID, 5));
+		assertEquals(7, map.get(Integer.MIN_VALUE, NO_ID));
+
+		map.remove(0);
+
+		assertFalse(map.containsKey(0));
+		assertEquals(NO_ID, map.get(NO_ID, 5));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	public void matchesHashMapForRandomOperations() {
+		Random random = new Random(3);
+		IntIntMap map = new IntIntMap();
+		Map<Integer, Integer> expected = new HashMap<>();
+
+		for (int step = 0; step < 200000; ++step) {
+			// Узкий диапазон ключей: много коллизий и удалений внутри цепочек
+			int key = random.nextInt(64) - 8;
+
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			} else {
+				map.put(key, step);
+				expected.put(key, step);
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		for (int key = -8; key < 56; ++key) {
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+			assertEquals(expected.containsKey(key) ? expected.get(key) : NO_ID, map.get(key, NO_ID));
+		}
+	}
+
+	// Повторяет хеш IntIntMap и IntObjectMap, чтобы выбрать ключи для заданной ячейки
+	static List<Integer> keysForSlot(int slot, int count) {
+		List<Integer> keys = new ArrayList<>();
+
+		for (int key = 1; keys.size() < count; ++key) {
+			int hash = key * 0x9E3779B9;
+
+			if (((hash ^ (hash >>> 16)) & (CAPACITY - 1)) == slot)
+				keys.add(key);
+		}
+
+		return keys;
+	}
+}
@@ -0,0 +1,126 @@
+package com.open.schedule.utility;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntObjectMapTest {
+	private static final int NO_ID = -1;
+	private static final int CAPACITY = 16;
+
+	@Test
+	public void deleteWrapsAroundTableEnd() {
+		List<Integer> keys = IntIntMapTest.keysForSlot(CAPACITY - 1, 4);
+		keys.addAll(IntIntMapTest.keysForSlot(0, 2));
+
+		for (int first = 0; first < keys.size(); ++first) {
+			IntObjectMap<String> map = new IntObjectMap<>();
+
+			for (int key : keys) {
+				map.put(key, "value " + key);
+			}
+
+			assertEquals("value " + keys.get(first), map.remove(keys.get(first)));
+			assertEquals(keys.size() - 1, map.size());
+			assertNull(map.get(keys.get(first)));
+
+			for (int key : keys) {
+				if (key != keys.get(first))
+					assertEquals("value " + key, map.get(key));
+			}
+		}
+	}
+
+	@Test
+	public void resizeAfterManyRemoves() {
+		IntObjectMap<Integer> map = new IntObjectMap<>();
+
+		for (int key = 0; key < 1000; ++key) {
+			map.put(key, key);
+		}
+
+		for (int key = 0; key < 990; ++key) {
+			assertEquals(Integer.valueOf(key), map.remove(key));
+		}
+
+		for (int key = 1000; key < 3000; ++key) {
+			map.put(key, key);
+		}
+
+		assertEquals(2010, map.size());
+
+		int count = 0;
+		for (Integer value : map) {
+			assertTrue(value >= 990);
+			count++;
+		}
+
+		assertEquals(2010, count);
+
+		for (int key = 0; key < 3000; ++key) {
+			assertEquals(key >= 990 ? Integer.valueOf(key) : null, map.get(key));
+		}
+	}
+
+	@Test
+	public void zeroAndSentinelKeys() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+
+		assertFalse(map.containsKey(0));
+		assertNull(map.remove(NO_ID));
+
+		map.put(0, "zero");
+		map.put(NO_ID, "no id");
+		map.put(Integer.MIN_VALUE, "min");
+
+		assertEquals("zero", map.get(0));
+		assertEquals("no id", map.get(NO_ID));
+		assertArrayEquals(new int[] {Integer.MIN_VALUE, NO_ID, 0}, map.sortedKeys());
+
+		assertEquals("zero", map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertEquals("no id", map.get(NO_ID));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	public void matchesHashMapForRandomOperations() {
+		Random random = new Random(5);
+		IntObjectMap<Integer> map = new IntObjectMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+
+		for (int step = 0; step < 200000; ++step) {
+			int key = random.nextInt(64) - 8;
+
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				map.put(key, step);
+				expected.put(key, step);
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		int[] keys = new int[expected.size()];
+		int count = 0;
+
+		for (int key : expected.keySet()) {
+			keys[count++] = key;
+			assertEquals(expected.get(key), map.get(key));
+		}
+
+		Arrays.sort(keys);
+		assertArrayEquals(keys, map.sortedKeys());
+	}
+}